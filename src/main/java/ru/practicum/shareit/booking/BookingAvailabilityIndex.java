@@ -0,0 +1,171 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingIntervalDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Индекс занятости вещей для проверки пересечения бронирований.
+ * Для каждой вещи лениво загружает из базы активные (WAITING и APPROVED) незавершённые бронирования
+ * и хранит их отсортированными по началу, что даёт проверку пересечения за O(log n).
+ * База остаётся источником истины: ответ индекса — подсказка, которую подтверждает условная вставка,
+ * а если загруженные интервалы сами пересекаются, индекс для вещи не строится и проверка уходит
+ * в {@link BookingRepository#findCrossBookings}.
+ * Изменения применяются только после коммита транзакции, которая их сделала. Бронирования других
+ * экземпляров сервиса сюда не попадают, поэтому расписание вещи живёт ограниченное время и загружается заново.
+ */
+@Slf4j
+@Component
+public class BookingAvailabilityIndex {
+
+    private static final long MAX_ITEMS = 10_000;
+    private static final Duration SCHEDULE_TTL = Duration.ofMinutes(10);
+
+    private final BookingRepository bookingRepository;
+
+    private final Cache<Long, ItemSchedule> schedules = Caffeine.newBuilder()
+            .maximumSize(MAX_ITEMS)
+            .expireAfterWrite(SCHEDULE_TTL)
+            .build();
+
+    @Autowired
+    public BookingAvailabilityIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    public boolean hasCrossBookings(Long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemSchedule schedule = schedules.get(itemId, this::load);
+        if (!schedule.isIndexed()) {
+            return !bookingRepository.findCrossBookings(itemId, start, end).isEmpty();
+        }
+        return schedule.overlaps(start, end);
+    }
+
+    public void add(Booking booking) {
+        if (!isActive(booking.getStatus())) {
+            return;
+        }
+        afterCommit(() -> schedules.asMap().computeIfPresent(booking.getItem().getId(), (itemId, schedule) -> {
+            schedule.add(booking.getId(), booking.getStartDate(), booking.getEndDate());
+            return schedule;
+        }));
+    }
+
+    public void remove(Long itemId, Long bookingId) {
+        afterCommit(() -> schedules.asMap().computeIfPresent(itemId, (id, schedule) -> {
+            if (!schedule.isIndexed()) {
+                // после отмены пересечение могло исчезнуть, при следующей проверке загрузим заново
+                return null;
+            }
+            schedule.remove(bookingId);
+            return schedule;
+        }));
+    }
+
+    /**
+     * Забывает расписание вещи, которое разошлось с базой; при следующей проверке оно загрузится заново
+     */
+    public void invalidate(Long itemId) {
+        schedules.invalidate(itemId);
+    }
+
+    /**
+     * Откаченная транзакция не должна оставлять в индексе интервалы, которых нет в базе
+     */
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private ItemSchedule load(Long itemId) {
+        List<BookingIntervalDto> intervals = bookingRepository.findActiveItemIntervals(itemId, LocalDateTime.now());
+        ItemSchedule schedule = new ItemSchedule();
+        intervals.forEach(interval -> schedule.add(interval.getId(), interval.getStart(), interval.getEnd()));
+        if (!schedule.isIndexed()) {
+            log.warn("Бронирования вещи {} пересекаются, проверка пойдёт через базу", itemId);
+        }
+        return schedule;
+    }
+
+    private static boolean isActive(BookingStatus status) {
+        return status == BookingStatus.WAITING || status == BookingStatus.APPROVED;
+    }
+
+    /**
+     * Непересекающиеся интервалы одной вещи. Так как интервалы не пересекаются,
+     * у интервала с наибольшим началом не позже {@code end} и конец наибольший,
+     * поэтому для проверки достаточно одного floorEntry.
+     */
+    private static class ItemSchedule {
+        private final TreeMap<LocalDateTime, BookingIntervalDto> byStart = new TreeMap<>();
+        private final Map<Long, BookingIntervalDto> byId = new HashMap<>();
+        private boolean indexed = true;
+
+        synchronized boolean isIndexed() {
+            return indexed;
+        }
+
+        synchronized boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, BookingIntervalDto> floor = byStart.floorEntry(end);
+            return floor != null && !floor.getValue().getEnd().isBefore(start);
+        }
+
+        synchronized void add(Long bookingId, LocalDateTime start, LocalDateTime end) {
+            if (!indexed || byId.containsKey(bookingId)) {
+                return;
+            }
+            if (overlaps(start, end)) {
+                indexed = false;
+                byStart.clear();
+                byId.clear();
+                return;
+            }
+            BookingIntervalDto interval = new BookingIntervalDto(bookingId, start, end);
+            byStart.put(start, interval);
+            byId.put(bookingId, interval);
+            removeFinished(LocalDateTime.now());
+        }
+
+        private void removeFinished(LocalDateTime now) {
+            Iterator<BookingIntervalDto> iterator = byStart.values().iterator();
+            while (iterator.hasNext()) {
+                BookingIntervalDto interval = iterator.next();
+                if (!interval.getEnd().isBefore(now)) {
+                    break;
+                }
+                iterator.remove();
+                byId.remove(interval.getId());
+            }
+        }
+
+        synchronized void remove(Long bookingId) {
+            BookingIntervalDto interval = byId.remove(bookingId);
+            if (interval != null) {
+                byStart.remove(interval.getStart());
+            }
+        }
+    }
+}
@@ -5,21 +5,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.error.exeptions.PaginationValidationException;
 
 import javax.validation.Valid;
-import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import java.util.List;
 
 @Slf4j
+@Validated
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_DECISIONS = 100;
+    private static final Sort SORT = Sort.by("startDate").descending().and(Sort.by("id").descending());
+
     private final BookingService bookingService;
 
     @Autowired
@@ -32,45 +44,106 @@ public class BookingController {
         return bookingService.create(bookingRequestDto, userId);
     }
 
+    /**
+     * Несколько бронирований одной вещи: либо сохраняются все, либо ни одного.
+     */
+    @PostMapping("/batch")
+    public List<BookingDto> createAll(@RequestHeader("X-Sharer-User-Id") Long userId, @Valid @RequestBody BookingBatchRequestDto batchRequestDto) {
+        return bookingService.createAll(batchRequestDto, userId);
+    }
+
     @PatchMapping("/{bookingId}")
-    public BookingDto approve(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long bookingId, @RequestParam @NotBlank Boolean approved) {
+    public BookingDto approve(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long bookingId, @RequestParam Boolean approved) {
         return bookingService.approve(userId, bookingId, approved);
     }
 
+    /**
+     * Пакетное подтверждение и отклонение бронирований владельцем. Итог отдаётся по каждому бронированию в порядке запроса.
+     * Размер списка и его элементы проверяются валидацией метода (@Validated на контроллере): @Valid на самом списке их не обходит.
+     */
+    @PatchMapping
+    public List<BookingDecisionResultDto> decideAll(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestBody @Size(min = 1, max = MAX_DECISIONS) List<@NotNull @Valid BookingDecisionDto> decisions
+    ) {
+        return bookingService.decideAll(userId, decisions);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getOneByIdAndUserId(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long bookingId) {
         return bookingService.getOneByIdAndUserId(bookingId, userId);
     }
 
+    /**
+     * Если передан cursor, страница строится по ключу (start, id) сразу после него, а from игнорируется.
+     * Если страница заполнена целиком, курсор следующей страницы отдаётся в заголовке X-Next-Cursor.
+     * Пути отличаются, и это часть контракта:
+     * <ul>
+     *     <li>без cursor from — номер страницы, а не смещение (как было всегда у этого эндпоинта),
+     *     пустая выдача — 404, в том числе для неизвестного пользователя;</li>
+     *     <li>с cursor пустая страница — 200 и [], так обход по курсорам заканчивается,
+     *     когда всего бронирований кратно size.</li>
+     * </ul>
+     */
     @GetMapping("/owner")
-    public List<BookingDto> findAllByOwner(
+    public ResponseEntity<List<BookingDto>> findAllByOwner(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "20") Integer size
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(required = false) String cursor
     ) {
+        if (cursor != null) {
+            return withNextCursor(bookingService.getPageByOwnerAndState(userId, state, decodeCursor(cursor, size), size), size);
+        }
         if (from < 0 || size < 0) {
             throw new PaginationValidationException("Ошибка в параметрах пагинации");
         }
-        Sort sort = Sort.by("startDate").descending();
-        Pageable pageable = PageRequest.of(from, size, sort);
-        return bookingService.getAllByOwnerAndState(userId, state, pageable);
+        Pageable pageable = PageRequest.of(from, size, SORT);
+        return withNextCursor(bookingService.getAllByOwnerAndState(userId, state, pageable), size);
     }
 
+    /**
+     * Если передан cursor, страница строится по ключу (start, id) сразу после него, а from игнорируется.
+     * Если страница заполнена целиком, курсор следующей страницы отдаётся в заголовке X-Next-Cursor.
+     * Пути отличаются, и это часть контракта:
+     * <ul>
+     *     <li>без cursor from — смещение, пустая выдача — 404, в том числе для неизвестного пользователя;</li>
+     *     <li>с cursor пустая страница — 200 и [], так обход по курсорам заканчивается,
+     *     когда всего бронирований кратно size.</li>
+     * </ul>
+     */
     @GetMapping
-    public List<BookingDto> findAllByBooker(
+    public ResponseEntity<List<BookingDto>> findAllByBooker(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "20") Integer size
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(required = false) String cursor
     ) {
-
+        if (cursor != null) {
+            return withNextCursor(bookingService.getPageByBookerAndState(userId, state, decodeCursor(cursor, size), size), size);
+        }
         if (from < 0 || size <= 0) {
             throw new PaginationValidationException("Ошибка в параметрах пагинации");
         }
-        Sort sort = Sort.by("startDate").descending();
         int start = from / size;
-        Pageable pageable = PageRequest.of(start, size, sort);
-        return bookingService.getAllByBookerAndState(userId, state, pageable);
+        Pageable pageable = PageRequest.of(start, size, SORT);
+        return withNextCursor(bookingService.getAllByBookerAndState(userId, state, pageable), size);
+    }
+
+    private BookingCursor decodeCursor(String cursor, Integer size) {
+        if (size <= 0) {
+            throw new PaginationValidationException("Ошибка в параметрах пагинации");
+        }
+        return BookingCursor.decode(cursor);
+    }
+
+    private ResponseEntity<List<BookingDto>> withNextCursor(List<BookingDto> bookings, Integer size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, BookingCursor.after(bookings.get(bookings.size() - 1)).encode());
+        }
+        return response.body(bookings);
     }
 }
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Условия выборки списка бронирований. Выдача всегда упорядочена по (start desc, id desc).
+ */
+@Getter
+@Builder
+@ToString
+public class BookingQuery {
+    /**
+     * От лица кого смотрим бронирования: букера или владельца вещи
+     */
+    @NonNull
+    private final BookingRole role;
+
+    @NonNull
+    private final Long userId;
+
+    @NonNull
+    @Builder.Default
+    private final BookingState state = BookingState.ALL;
+
+    /**
+     * Момент, относительно которого считаются состояния CURRENT, PAST и FUTURE
+     */
+    @NonNull
+    @Builder.Default
+    private final LocalDateTime now = LocalDateTime.now();
+
+    /**
+     * Необязательное окно: в выдачу попадут только бронирования, пересекающиеся с [windowStart, windowEnd]
+     */
+    private final LocalDateTime windowStart;
+
+    private final LocalDateTime windowEnd;
+
+    /**
+     * Позиция последнего бронирования предыдущей страницы. Если задана, offset не используется
+     */
+    private final BookingCursor cursor;
+
+    @Builder.Default
+    private final long offset = 0;
+
+    @Builder.Default
+    private final int limit = 20;
+}
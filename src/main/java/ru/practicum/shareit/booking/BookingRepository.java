@@ -1,78 +1,123 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingIntervalDto;
+import ru.practicum.shareit.booking.dto.BookingOwnershipDto;
+import ru.practicum.shareit.booking.dto.ItemBookingChangeDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+
+    /**
+     * Бронирование вместе со всем, что нужно для BookingDto: вещью, её владельцем и запросом, и букером
+     */
+    String FETCH_DETAILS = "select b from Booking b " +
+            "join fetch b.item i " +
+            "join fetch i.owner o " +
+            "left join fetch i.request r " +
+            "left join fetch r.requester " +
+            "join fetch b.booker ";
 
     @Transactional
     @Modifying
     @Query("update Booking b set b.status = :status where b.id = :id")
     void updateStatus(@NonNull @Param("status") BookingStatus status, @NonNull @Param("id") Long id);
 
-    List<Booking> findAllByBooker_IdOrderByStartDateDesc(Long userId, Pageable pageable);
-
-    List<Booking> findAllByItem_Owner_IdOrderByStartDateDesc(Long userId, Pageable pageable);
-
-    @Query("select b from Booking b where b.booker.id = :userId and b.startDate <= :now and b.endDate > :now order by b.startDate desc")
-    List<Booking> findCurrentByBookerId(@NonNull Long userId, @NonNull LocalDateTime now, Pageable pageable);
-
-    @Query("select b from Booking b where b.item.owner.id = :userId and b.startDate <= :now and b.endDate > :now order by b.startDate desc")
-    List<Booking> findCurrentByOwnerId(@NonNull Long userId, @NonNull LocalDateTime now, Pageable pageable);
-
-    @Query("select b from Booking b where b.booker.id = :userId and b.endDate < :now order by b.startDate desc")
-    List<Booking> findPastByBookerId(@NonNull Long userId, @NonNull LocalDateTime now, Pageable pageable);
-
-    @Query("select b from Booking b where b.item.owner.id = :userId and b.endDate < :now order by b.startDate desc")
-    List<Booking> findPastByOwnerId(@NonNull Long userId, @NonNull LocalDateTime now, Pageable pageable);
-
-    @Query("select b from Booking b where b.booker.id = :userId and b.startDate > :now order by b.startDate desc")
-    List<Booking> findFutureByBookerId(@NonNull Long userId, @NonNull LocalDateTime now, Pageable pageable);
-
-    @Query("select b from Booking b where b.item.owner.id = :userId and b.startDate > :now order by b.startDate desc")
-    List<Booking> findFutureByOwnerId(@NonNull Long userId, @NonNull LocalDateTime now, Pageable pageable);
+    /**
+     * Меняет статус бронирований, только если они ещё ждут решения и их вещи принадлежат ownerId.
+     * Проверка и запись идут одним UPDATE, поэтому два одновременных решения по одному бронированию
+     * не могут пройти оба. Единственный переход из WAITING и для одного решения, и для пакета.
+     *
+     * @return число изменённых строк
+     */
+    @Transactional
+    @Modifying
+    @Query("update Booking b set b.status = :status " +
+            "where b.id in :ids " +
+            "and b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = :ownerId)")
+    int updateWaitingStatus(
+            @NonNull @Param("status") BookingStatus status,
+            @NonNull @Param("ids") Collection<Long> ids,
+            @NonNull @Param("ownerId") Long ownerId
+    );
+
+    /**
+     * Блокирует строки бронирований до конца транзакции, по возрастанию id, как ItemRepository#lockAllById
+     */
+    @Query(value = "select id from bookings where id in (:ids) order by id for update", nativeQuery = true)
+    List<Long> lockAllById(@Param("ids") Collection<Long> ids);
+
+    @Query(FETCH_DETAILS + "where b.id = :bookingId and (b.booker.id = :userId or o.id = :userId)")
+    Optional<Booking> findByIdAndUserId(@NonNull Long bookingId, @NonNull Long userId);
 
-    List<Booking> findByBookerIdAndStatusOrderByStartDateDesc(@NonNull Long userId, @NonNull BookingStatus status, Pageable pageable);
+    @Query(FETCH_DETAILS + "where b.id = :bookingId")
+    Optional<Booking> findWithDetailsById(@NonNull Long bookingId);
 
-    List<Booking> findByItem_Owner_IdAndStatusOrderByStartDateDesc(@NonNull Long userId, @NonNull BookingStatus status, Pageable pageable);
+    @Query(FETCH_DETAILS + "where b.id in :bookingIds")
+    List<Booking> findWithDetailsByIdIn(@NonNull Collection<Long> bookingIds);
 
-    @Query("select b from Booking b where b.id = :bookingId and (b.booker.id = :userId or b.item.owner.id = :userId)")
-    Optional<Booking> findByIdAndUserId(@NonNull Long bookingId, @NonNull Long userId);
+    @Query("select new ru.practicum.shareit.booking.dto.BookingOwnershipDto(b.id, b.status, i.owner.id) " +
+            "from Booking b join b.item i " +
+            "where b.id in :bookingIds")
+    List<BookingOwnershipDto> findOwnership(@NonNull Collection<Long> bookingIds);
 
     @Query("select b from Booking b " +
             "where b.item.id = :itemId " +
+            "and b.status in (ru.practicum.shareit.booking.model.BookingStatus.WAITING, " +
+            "ru.practicum.shareit.booking.model.BookingStatus.APPROVED) " +
             "and ((b.startDate between :start and :end or b.endDate between :start and :end) " +
             "or (b.startDate <= :start and b.endDate >= :end))")
     List<Booking> findCrossBookings(@NonNull Long itemId, @NonNull LocalDateTime start, @NonNull LocalDateTime end);
 
-    Optional<Booking> findFirstByItem_IdAndItem_Owner_IdAndEndDateLessThanOrderByEndDateDesc(@NonNull Long itemId, @NonNull Long ownerId, @NonNull LocalDateTime now);
-
-    Optional<Booking> findFirstByItem_IdAndItem_Owner_IdAndStartDateGreaterThanOrderByStartDateAsc(@NonNull Long itemId, @NonNull Long ownerId, @NonNull LocalDateTime now);
+    @Query("select new ru.practicum.shareit.booking.dto.BookingIntervalDto(b.id, b.startDate, b.endDate) " +
+            "from Booking b " +
+            "where b.item.id = :itemId " +
+            "and b.status in (ru.practicum.shareit.booking.model.BookingStatus.WAITING, " +
+            "ru.practicum.shareit.booking.model.BookingStatus.APPROVED) " +
+            "and b.endDate >= :now " +
+            "order by b.startDate")
+    List<BookingIntervalDto> findActiveItemIntervals(@NonNull Long itemId, @NonNull LocalDateTime now);
 
-    Optional<Booking> findFirstByItem_IdAndBooker_IdAndEndDateLessThan(Long itemId, Long bookerId, LocalDateTime endDate);
+    @Query("select case when count(b) > 0 then true else false end from Booking b " +
+            "where b.item.id = :itemId and b.booker.id = :bookerId and b.endDate < :now")
+    boolean existsPastBooking(@NonNull Long itemId, @NonNull Long bookerId, @NonNull LocalDateTime now);
 
     @Query(value = "select b1.* " +
             "from bookings b1 " +
-            "inner join (select item_id, MAX(end_time) max_end_time from bookings where end_time < (:now) group by item_id) b2 " +
+            "inner join (select item_id, MAX(end_time) max_end_time from bookings " +
+            "where item_id in (:itemIds) and end_time < (:now) group by item_id) b2 " +
             "on b1.item_id = b2.item_id and b1.end_time = b2.max_end_time " +
             "where b1.item_id in (:itemIds)", nativeQuery = true)
     List<Booking> findLastItemBookings(@Param("itemIds") @NonNull List<Long> itemIds, @Param("now") @NonNull LocalDateTime now);
 
     @Query(value = "select b1.* " +
             "from bookings b1 " +
-            "inner join (select item_id, MIN(start_time) min_end_time from bookings where start_time > (:now) group by item_id) b2 " +
+            "inner join (select item_id, MIN(start_time) min_end_time from bookings " +
+            "where item_id in (:itemIds) and start_time > (:now) group by item_id) b2 " +
             "on b1.item_id = b2.item_id and b1.start_time = b2.min_end_time " +
             "where b1.item_id in (:itemIds)", nativeQuery = true)
     List<Booking> findNextItemBookings(@Param("itemIds") @NonNull List<Long> itemIds, @Param("now") @NonNull LocalDateTime now);
+
+    /**
+     * Для каждой вещи: когда ближайшее будущее бронирование начнётся или текущее закончится.
+     * До этого момента последнее и следующее бронирования вещи не меняются.
+     */
+    @Query("select new ru.practicum.shareit.booking.dto.ItemBookingChangeDto(b.item.id, " +
+            "min(case when b.startDate > :now then b.startDate else b.endDate end)) " +
+            "from Booking b " +
+            "where b.item.id in :itemIds and b.endDate >= :now " +
+            "group by b.item.id")
+    List<ItemBookingChangeDto> findNextChanges(@NonNull Collection<Long> itemIds, @NonNull LocalDateTime now);
 }
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BookingRepositoryCustom {
+
+    /**
+     * Сохраняет бронирование одним запросом, только если у вещи нет активных бронирований,
+     * пересекающихся с его датами.
+     *
+     * @return id сохранённого бронирования или пустой Optional, если даты уже заняты
+     */
+    Optional<Long> insertIfFree(Booking booking);
+
+    /**
+     * Сохраняет бронирования одним JDBC-батчем, минуя Hibernate: с id типа IDENTITY он вставлял бы их по одному.
+     * Пересечения не проверяет, вызывающий должен держать блокировку вещи.
+     *
+     * @return id сохранённых бронирований в том же порядке
+     * @throws org.springframework.dao.DataAccessException если вставлены не все строки или драйвер вернул не все id
+     */
+    List<Long> insertAll(List<Booking> bookings);
+
+    /**
+     * Единственный путь чтения списков бронирований: роль, состояние, окно дат и позиция страницы
+     * собираются в один запрос, который сразу выбирает плоское представление BookingView
+     * с полями вещи и букера, без загрузки сущностей в контекст персистентности.
+     * Если в запросе задан курсор, страница начинается сразу после него (без OFFSET),
+     * поэтому её стоимость не зависит от номера.
+     */
+    List<BookingView> findViews(BookingQuery query);
+}
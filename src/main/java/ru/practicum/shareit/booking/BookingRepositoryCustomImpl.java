@@ -0,0 +1,219 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    private static final String INSERT_IF_FREE = "insert into bookings (start_time, end_time, item_id, booker_id, status) " +
+            "select cast(:start as timestamp), cast(:end as timestamp), :itemId, :bookerId, :status " +
+            "where not exists (select 1 from bookings b " +
+            "where b.item_id = :itemId " +
+            "and b.status in ('WAITING', 'APPROVED') " +
+            "and b.start_time <= cast(:end as timestamp) " +
+            "and b.end_time >= cast(:start as timestamp))";
+
+    private static final String INSERT = "insert into bookings (start_time, end_time, item_id, booker_id, status) " +
+            "values (?, ?, ?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BookingRepositoryCustomImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<Long> insertIfFree(Booking booking) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", booking.getStartDate())
+                .addValue("end", booking.getEndDate())
+                .addValue("itemId", booking.getItem().getId())
+                .addValue("bookerId", booking.getBooker().getId())
+                .addValue("status", booking.getStatus().name());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(INSERT_IF_FREE, params, keyHolder, new String[]{"id"});
+        if (inserted == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(keyHolder.getKey().longValue());
+    }
+
+    @Override
+    public List<Long> insertAll(List<Booking> bookings) {
+        return jdbcTemplate.getJdbcOperations().execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"id"})) {
+                for (Booking booking : bookings) {
+                    statement.setTimestamp(1, Timestamp.valueOf(booking.getStartDate()));
+                    statement.setTimestamp(2, Timestamp.valueOf(booking.getEndDate()));
+                    statement.setLong(3, booking.getItem().getId());
+                    statement.setLong(4, booking.getBooker().getId());
+                    statement.setString(5, booking.getStatus().name());
+                    statement.addBatch();
+                }
+                int[] inserted = statement.executeBatch();
+                if (inserted.length != bookings.size()) {
+                    throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(INSERT, bookings.size(), inserted.length);
+                }
+                for (int count : inserted) {
+                    // SUCCESS_NO_INFO: драйвер выполнил строку батча, но не сообщил число строк
+                    if (count != 1 && count != Statement.SUCCESS_NO_INFO) {
+                        throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(INSERT, 1, count);
+                    }
+                }
+                List<Long> ids = new ArrayList<>(bookings.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                // некоторые драйверы отдают для батча только последний ключ или ни одного
+                if (ids.size() != bookings.size()) {
+                    throw new IncorrectResultSizeDataAccessException(
+                            "Драйвер вернул не все id вставленных бронирований", bookings.size(), ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
+    @Override
+    public List<BookingView> findViews(BookingQuery bookingQuery) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingView> query = cb.createQuery(BookingView.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, Item> item = booking.join("item", JoinType.INNER);
+        Join<Booking, User> booker = booking.join("booker", JoinType.INNER);
+        query.select(cb.construct(
+                BookingView.class,
+                booking.get("id"),
+                booking.get("startDate"),
+                booking.get("endDate"),
+                booking.get("status"),
+                item.get("id"),
+                item.get("name"),
+                item.get("description"),
+                item.get("isAvailable"),
+                item.get("owner").get("id"),
+                item.get("request").get("id"),
+                booker.get("id"),
+                booker.get("name"),
+                booker.get("email")
+        ));
+        return page(restrict(cb, query, booking, item, bookingQuery), bookingQuery);
+    }
+
+    /**
+     * Общие для всех форм выдачи условия и порядок (start desc, id desc)
+     */
+    private static <T> CriteriaQuery<T> restrict(
+            CriteriaBuilder cb,
+            CriteriaQuery<T> query,
+            Root<Booking> booking,
+            Join<Booking, Item> item,
+            BookingQuery bookingQuery
+    ) {
+        Path<LocalDateTime> start = booking.get("startDate");
+        Path<LocalDateTime> end = booking.get("endDate");
+        Path<Long> id = booking.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (bookingQuery.getRole() == BookingRole.BOOKER) {
+            predicates.add(cb.equal(booking.get("booker").get("id"), bookingQuery.getUserId()));
+        } else {
+            predicates.add(cb.equal(item.get("owner").get("id"), bookingQuery.getUserId()));
+        }
+        addStatePredicates(cb, booking, bookingQuery.getState(), bookingQuery.getNow(), predicates);
+        if (bookingQuery.getWindowStart() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(end, bookingQuery.getWindowStart()));
+        }
+        if (bookingQuery.getWindowEnd() != null) {
+            predicates.add(cb.lessThanOrEqualTo(start, bookingQuery.getWindowEnd()));
+        }
+        BookingCursor cursor = bookingQuery.getCursor();
+        if (cursor != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(start, cursor.getStart()),
+                    cb.and(cb.equal(start, cursor.getStart()), cb.lessThan(id, cursor.getId()))
+            ));
+        }
+        return query.where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(start), cb.desc(id));
+    }
+
+    private <T> List<T> page(CriteriaQuery<T> query, BookingQuery bookingQuery) {
+        TypedQuery<T> typedQuery = entityManager.createQuery(query)
+                .setMaxResults(bookingQuery.getLimit());
+        if (bookingQuery.getCursor() == null && bookingQuery.getOffset() > 0) {
+            typedQuery.setFirstResult(Math.toIntExact(bookingQuery.getOffset()));
+        }
+        return typedQuery.getResultList();
+    }
+
+    private static void addStatePredicates(
+            CriteriaBuilder cb,
+            Root<Booking> booking,
+            BookingState state,
+            LocalDateTime now,
+            List<Predicate> predicates
+    ) {
+        Path<LocalDateTime> start = booking.get("startDate");
+        Path<LocalDateTime> end = booking.get("endDate");
+        switch (state) {
+            case CURRENT:
+                predicates.add(cb.lessThanOrEqualTo(start, now));
+                predicates.add(cb.greaterThan(end, now));
+                break;
+            case PAST:
+                predicates.add(cb.lessThan(end, now));
+                break;
+            case FUTURE:
+                predicates.add(cb.greaterThan(start, now));
+                break;
+            case WAITING:
+                predicates.add(cb.equal(booking.get("status"), BookingStatus.WAITING));
+                break;
+            case REJECTED:
+                predicates.add(cb.equal(booking.get("status"), BookingStatus.REJECTED));
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.model.BookingState;
@@ -11,11 +15,19 @@ public interface BookingService {
 
     BookingDto create(BookingRequestDto bookingRequestDto, Long bookerId);
 
+    List<BookingDto> createAll(BookingBatchRequestDto batchRequestDto, Long bookerId);
+
     BookingDto approve(Long userId, Long bookingId, Boolean approved);
 
+    List<BookingDecisionResultDto> decideAll(Long userId, List<BookingDecisionDto> decisions);
+
     BookingDto getOneByIdAndUserId(Long bookingId, Long userId);
 
     List<BookingDto> getAllByBookerAndState(Long userId, BookingState state, Pageable pageable);
 
     List<BookingDto> getAllByOwnerAndState(Long userId, BookingState state, Pageable pageable);
+
+    List<BookingDto> getPageByBookerAndState(Long userId, BookingState state, BookingCursor cursor, int size);
+
+    List<BookingDto> getPageByOwnerAndState(Long userId, BookingState state, BookingCursor cursor, int size);
 }
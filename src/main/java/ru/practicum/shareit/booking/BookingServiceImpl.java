@@ -4,22 +4,41 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingIntervalDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingOwnershipDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingSlotDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDecisionOutcome;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.error.exeptions.*;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.ItemBookingSummaryService;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.UserExistenceCache;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -28,68 +47,230 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingAvailabilityIndex bookingAvailabilityIndex;
+    private final ItemBookingSummaryService itemBookingSummaryService;
+    private final UserExistenceCache userExistenceCache;
 
     @Autowired
     public BookingServiceImpl(
             BookingRepository bookingRepository,
             UserRepository userRepository,
-            ItemRepository itemRepository
+            ItemRepository itemRepository,
+            BookingAvailabilityIndex bookingAvailabilityIndex,
+            ItemBookingSummaryService itemBookingSummaryService,
+            UserExistenceCache userExistenceCache
     ) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
+        this.bookingAvailabilityIndex = bookingAvailabilityIndex;
+        this.itemBookingSummaryService = itemBookingSummaryService;
+        this.userExistenceCache = userExistenceCache;
     }
 
+    @Transactional
     public BookingDto create(BookingRequestDto bookingRequestDto, Long bookerId) {
-        Item item = itemRepository.findById(bookingRequestDto.getItemId()).orElseThrow(
-                () -> new ItemNotFoundException("Предмет не найден")
-        );
-        if (!item.getIsAvailable()) {
-            throw new ItemNotAvailableException("Предмет недоступен");
-        }
-        if (Objects.equals(item.getOwner().getId(), bookerId)) {
-            throw new BookingImpossibleException("Нельзя заказать у самого себя");
-        }
+        Item item = lockBookableItem(bookingRequestDto.getItemId(), bookerId);
         User user = userRepository.findById(bookerId).orElseThrow(
                 () -> new UserNotFoundException("Юзер не найден")
         );
-        List<Booking> crossBookings = bookingRepository.findCrossBookings(
+        boolean hasCrossBookings = bookingAvailabilityIndex.hasCrossBookings(
                 bookingRequestDto.getItemId(),
                 bookingRequestDto.getStart(),
                 bookingRequestDto.getEnd()
         );
-        if (crossBookings.size() != 0) {
-            throw new BookingImpossibleException("На эти даты уже забронено");
-        }
         Booking booking = BookingMapper.toObject(bookingRequestDto, item, user, BookingStatus.WAITING);
-        booking = bookingRepository.save(booking);
+        // занятость решает условная вставка, индекс только подсказка
+        Long bookingId = bookingRepository.insertIfFree(booking).orElseThrow(
+                () -> new BookingImpossibleException("На эти даты уже забронено")
+        );
+        if (hasCrossBookings) {
+            log.debug("Индекс занятости вещи {} разошёлся с базой, загрузим заново", item.getId());
+            bookingAvailabilityIndex.invalidate(item.getId());
+        }
+        booking.setId(bookingId);
+        bookingAvailabilityIndex.add(booking);
+        itemBookingSummaryService.refresh(List.of(item.getId()));
         return BookingMapper.toDto(booking);
 
     }
 
-    public BookingDto approve(Long userId, Long bookingId, Boolean approved) {
-        User user = userRepository.findById(userId).orElseThrow(
+    /**
+     * Пакетное бронирование одной вещи. Вещь и букер загружаются один раз, интервалы проверяются
+     * между собой и с уже существующими бронированиями в памяти, а сохраняются одним батчем.
+     * Блокировка вещи не даёт параллельным create и createAll занять те же даты.
+     */
+    @Override
+    @Transactional
+    public List<BookingDto> createAll(BookingBatchRequestDto batchRequestDto, Long bookerId) {
+        Item item = lockBookableItem(batchRequestDto.getItemId(), bookerId);
+        User user = userRepository.findById(bookerId).orElseThrow(
                 () -> new UserNotFoundException("Юзер не найден")
         );
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(
-                () -> new BookingNotFoundException("Букинг не найден")
+        List<Booking> bookings = new ArrayList<>(batchRequestDto.getSlots().size());
+        for (BookingSlotDto slot : batchRequestDto.getSlots()) {
+            BookingRequestDto bookingRequestDto = BookingRequestDto.builder()
+                    .itemId(item.getId())
+                    .start(slot.getStart())
+                    .end(slot.getEnd())
+                    .build();
+            bookings.add(BookingMapper.toObject(bookingRequestDto, item, user, BookingStatus.WAITING));
+        }
+        checkNoCrossBookings(bookings, bookingRepository.findActiveItemIntervals(item.getId(), LocalDateTime.now()));
+
+        List<Long> ids = bookingRepository.insertAll(bookings);
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(ids.get(i));
+            bookingAvailabilityIndex.add(bookings.get(i));
+        }
+        itemBookingSummaryService.refresh(List.of(item.getId()));
+        return BookingMapper.toDtos(bookings);
+    }
+
+    private Item lockBookableItem(Long itemId, Long bookerId) {
+        Item item = itemRepository.findByIdForUpdate(itemId).orElseThrow(
+                () -> new ItemNotFoundException("Предмет не найден")
         );
-        if (booking.getStatus() != BookingStatus.WAITING) {
-            throw new BookingValidationException("Букинг не в статусе 'ОЖИДАНИЕ'");
+        if (!item.getIsAvailable()) {
+            throw new ItemNotAvailableException("Предмет недоступен");
         }
-        if (!booking.getItem().getOwner().equals(user)) {
-            throw new BookingPermissionDeniedException("Это не ваша вещь, что бы её распоряжаться");
+        if (Objects.equals(item.getOwner().getId(), bookerId)) {
+            throw new BookingImpossibleException("Нельзя заказать у самого себя");
         }
-        if (approved) {
-            bookingRepository.updateStatus(BookingStatus.APPROVED, booking.getId());
-            booking.setStatus(BookingStatus.APPROVED);
-        } else {
-            bookingRepository.updateStatus(BookingStatus.REJECTED, booking.getId());
-            booking.setStatus(BookingStatus.REJECTED);
+        return item;
+    }
+
+    /**
+     * Один проход по всем интервалам в порядке начала. Интервал пересекается с кем-то из начавшихся раньше,
+     * если его начало не позже наибольшего конца среди них. Пересечения существующих бронирований между собой не важны.
+     */
+    private static void checkNoCrossBookings(List<Booking> requested, List<BookingIntervalDto> existing) {
+        List<BookingIntervalDto> intervals = new ArrayList<>(existing);
+        requested.forEach(booking -> intervals.add(new BookingIntervalDto(null, booking.getStartDate(), booking.getEndDate())));
+        intervals.sort(Comparator.comparing(BookingIntervalDto::getStart));
+        LocalDateTime existingEnd = null;
+        LocalDateTime requestedEnd = null;
+        for (BookingIntervalDto interval : intervals) {
+            boolean isRequested = interval.getId() == null;
+            boolean crossesExisting = existingEnd != null && !existingEnd.isBefore(interval.getStart());
+            boolean crossesRequested = requestedEnd != null && !requestedEnd.isBefore(interval.getStart());
+            if (isRequested && crossesRequested) {
+                throw new BookingImpossibleException("Интервалы в запросе пересекаются");
+            }
+            if (isRequested ? crossesExisting : crossesRequested) {
+                throw new BookingImpossibleException("На эти даты уже забронено");
+            }
+            if (isRequested) {
+                requestedEnd = max(requestedEnd, interval.getEnd());
+            } else {
+                existingEnd = max(existingEnd, interval.getEnd());
+            }
+        }
+    }
+
+    private static LocalDateTime max(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isAfter(current) ? candidate : current;
+    }
+
+    @Transactional
+    public BookingDto approve(Long userId, Long bookingId, Boolean approved) {
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        if (bookingRepository.updateWaitingStatus(status, List.of(bookingId), userId) == 0) {
+            throw approveFailure(userId, bookingId);
+        }
+        Booking booking = bookingRepository.findWithDetailsById(bookingId).orElseThrow(
+                () -> new BookingNotFoundException("Букинг не найден")
+        );
+        if (status == BookingStatus.REJECTED) {
+            bookingAvailabilityIndex.remove(booking.getItem().getId(), booking.getId());
         }
         return BookingMapper.toDto(booking);
     }
 
+    /**
+     * Решения по нескольким бронированиям: строки бронирований блокируются, статусы и владельцы проверяются
+     * одним запросом, изменения применяются тем же UPDATE, что и одиночное решение, по одному на каждый статус.
+     * Отказ по одному бронированию не мешает остальным. Размер списка и его элементы проверяет контроллер.
+     */
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> decideAll(Long userId, List<BookingDecisionDto> decisions) {
+        Map<Long, BookingStatus> requested = new LinkedHashMap<>();
+        for (BookingDecisionDto decision : decisions) {
+            BookingStatus status = decision.getApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+            if (requested.put(decision.getBookingId(), status) != null) {
+                throw new BookingValidationException(String.format("Решение по букингу %d передано дважды", decision.getBookingId()));
+            }
+        }
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException("Юзер не найден");
+        }
+
+        // под блокировкой параллельный запрос не примет решение между проверкой и обновлением
+        bookingRepository.lockAllById(requested.keySet());
+        Map<Long, BookingOwnershipDto> ownership = new HashMap<>();
+        bookingRepository.findOwnership(requested.keySet()).forEach(booking -> ownership.put(booking.getId(), booking));
+        Map<Long, BookingDecisionOutcome> refused = new HashMap<>();
+        Map<BookingStatus, List<Long>> allowed = new EnumMap<>(BookingStatus.class);
+        requested.forEach((bookingId, status) -> {
+            BookingOwnershipDto booking = ownership.get(bookingId);
+            if (booking == null) {
+                refused.put(bookingId, BookingDecisionOutcome.NOT_FOUND);
+            } else if (booking.getStatus() != BookingStatus.WAITING) {
+                refused.put(bookingId, BookingDecisionOutcome.NOT_WAITING);
+            } else if (!Objects.equals(booking.getOwnerId(), userId)) {
+                refused.put(bookingId, BookingDecisionOutcome.NOT_OWNER);
+            } else {
+                allowed.computeIfAbsent(status, key -> new ArrayList<>()).add(bookingId);
+            }
+        });
+
+        Map<Long, Booking> updated = new HashMap<>();
+        if (!allowed.isEmpty()) {
+            List<Long> updatedIds = new ArrayList<>();
+            allowed.forEach((status, bookingIds) -> {
+                bookingRepository.updateWaitingStatus(status, bookingIds, userId);
+                updatedIds.addAll(bookingIds);
+            });
+            bookingRepository.findWithDetailsByIdIn(updatedIds).forEach(booking -> updated.put(booking.getId(), booking));
+        }
+
+        List<BookingDecisionResultDto> results = new ArrayList<>(requested.size());
+        requested.forEach((bookingId, status) -> {
+            Booking booking = updated.get(bookingId);
+            BookingDecisionResultDto.BookingDecisionResultDtoBuilder result = BookingDecisionResultDto.builder().bookingId(bookingId);
+            if (booking == null) {
+                results.add(result.outcome(refused.get(bookingId)).build());
+                return;
+            }
+            if (status == BookingStatus.REJECTED) {
+                bookingAvailabilityIndex.remove(booking.getItem().getId(), bookingId);
+            }
+            results.add(result
+                    .outcome(status == BookingStatus.APPROVED ? BookingDecisionOutcome.APPROVED : BookingDecisionOutcome.REJECTED)
+                    .booking(BookingMapper.toDto(booking))
+                    .build());
+        });
+        return results;
+    }
+
+    /**
+     * Выясняет, почему условный UPDATE не изменил ни одной строки. Ходит в базу только при отказе.
+     */
+    private RuntimeException approveFailure(Long userId, Long bookingId) {
+        if (!userExistenceCache.exists(userId)) {
+            return new UserNotFoundException("Юзер не найден");
+        }
+        Optional<Booking> booking = bookingRepository.findWithDetailsById(bookingId);
+        if (booking.isEmpty()) {
+            return new BookingNotFoundException("Букинг не найден");
+        }
+        if (booking.get().getStatus() != BookingStatus.WAITING) {
+            return new BookingValidationException("Букинг не в статусе 'ОЖИДАНИЕ'");
+        }
+        return new BookingPermissionDeniedException("Это не ваша вещь, что бы её распоряжаться");
+    }
+
     public BookingDto getOneByIdAndUserId(Long bookingId, Long userId) {
         Booking booking = bookingRepository.findByIdAndUserId(bookingId, userId)
                 .orElseThrow(
@@ -100,59 +281,46 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingDto> getAllByBookerAndState(Long userId, BookingState state, Pageable pageable) {
-        List<Booking> bookings = Collections.emptyList();
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findAllByBooker_IdOrderByStartDateDesc(userId, pageable);
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findCurrentByBookerId(userId, LocalDateTime.now(), pageable);
-                break;
-            case PAST:
-                bookings = bookingRepository.findPastByBookerId(userId, LocalDateTime.now(), pageable);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findFutureByBookerId(userId, LocalDateTime.now(), pageable);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByBookerIdAndStatusOrderByStartDateDesc(userId, BookingStatus.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByBookerIdAndStatusOrderByStartDateDesc(userId, BookingStatus.REJECTED, pageable);
-                break;
-        }
-        if (bookings.size() == 0) {
-            throw new BookingNotFoundException("Букинги не найдены");
-        }
-        return BookingMapper.toDtos(bookings);
+        return getAll(BookingRole.BOOKER, userId, state, pageable);
     }
 
     @Override
     public List<BookingDto> getAllByOwnerAndState(Long userId, BookingState state, Pageable pageable) {
-        List<Booking> bookings = Collections.emptyList();
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findAllByItem_Owner_IdOrderByStartDateDesc(userId, pageable);
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findCurrentByOwnerId(userId, LocalDateTime.now(), pageable);
-                break;
-            case PAST:
-                bookings = bookingRepository.findPastByOwnerId(userId, LocalDateTime.now(), pageable);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findFutureByOwnerId(userId, LocalDateTime.now(), pageable);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByItem_Owner_IdAndStatusOrderByStartDateDesc(userId, BookingStatus.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByItem_Owner_IdAndStatusOrderByStartDateDesc(userId, BookingStatus.REJECTED, pageable);
-                break;
-        }
-        if (bookings.size() == 0) {
+        return getAll(BookingRole.OWNER, userId, state, pageable);
+    }
+
+    @Override
+    public List<BookingDto> getPageByBookerAndState(Long userId, BookingState state, BookingCursor cursor, int size) {
+        return getPage(BookingRole.BOOKER, userId, state, cursor, size);
+    }
+
+    @Override
+    public List<BookingDto> getPageByOwnerAndState(Long userId, BookingState state, BookingCursor cursor, int size) {
+        return getPage(BookingRole.OWNER, userId, state, cursor, size);
+    }
+
+    private List<BookingDto> getAll(BookingRole role, Long userId, BookingState state, Pageable pageable) {
+        List<BookingView> bookings = bookingRepository.findViews(BookingQuery.builder()
+                .role(role)
+                .userId(userId)
+                .state(state)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .build());
+        if (bookings.isEmpty()) {
             throw new BookingNotFoundException("Букинги не найдены");
         }
-        return BookingMapper.toDtos(bookings);
+        return BookingMapper.fromViews(bookings);
+    }
+
+    private List<BookingDto> getPage(BookingRole role, Long userId, BookingState state, BookingCursor cursor, int size) {
+        List<BookingView> bookings = bookingRepository.findViews(BookingQuery.builder()
+                .role(role)
+                .userId(userId)
+                .state(state)
+                .cursor(cursor)
+                .limit(size)
+                .build());
+        return BookingMapper.fromViews(bookings);
     }
 }
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Несколько бронирований одной вещи одним запросом
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingBatchRequestDto {
+
+    @NotNull
+    private Long itemId;
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<@Valid BookingSlotDto> slots;
+}
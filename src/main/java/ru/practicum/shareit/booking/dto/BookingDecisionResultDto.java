@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.BookingDecisionOutcome;
+
+/**
+ * Итог решения по одному бронированию. Бронирование отдаётся, только если решение применено
+ */
+@Data
+@Builder
+public class BookingDecisionResultDto {
+    private Long bookingId;
+    private BookingDecisionOutcome outcome;
+    private BookingDto booking;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Интервал бронирования вещи, без самой вещи и букера
+ */
+@Getter
+@AllArgsConstructor
+public class BookingIntervalDto {
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -5,8 +5,10 @@ import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.error.exeptions.BookingValidationException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 
 import java.time.LocalDateTime;
@@ -26,6 +28,29 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingDto toDto(@NonNull BookingView view) {
+        return BookingDto.builder()
+                .id(view.getId())
+                .start(view.getStart())
+                .end(view.getEnd())
+                .item(ItemDto.builder()
+                        .id(view.getItemId())
+                        .name(view.getItemName())
+                        .description(view.getItemDescription())
+                        .available(view.getItemAvailable())
+                        .owner(view.getItemOwnerId())
+                        .requestId(view.getItemRequestId())
+                        .comments(new ArrayList<>())
+                        .build())
+                .booker(UserDto.builder()
+                        .id(view.getBookerId())
+                        .name(view.getBookerName())
+                        .email(view.getBookerEmail())
+                        .build())
+                .status(view.getStatus())
+                .build();
+    }
+
     public static Booking toObject(@NonNull BookingDto bookingDto, Item item, User booker) {
         LocalDateTime startTime = bookingDto.getStart();
         LocalDateTime endTime = bookingDto.getEnd();
@@ -62,4 +87,10 @@ public class BookingMapper {
         bookings.forEach(booking -> dtos.add(toDto(booking)));
         return dtos;
     }
+
+    public static List<BookingDto> fromViews(@NonNull List<BookingView> views) {
+        List<BookingDto> dtos = new ArrayList<>(views.size());
+        views.forEach(view -> dtos.add(toDto(view)));
+        return dtos;
+    }
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+/**
+ * Статус бронирования и владелец вещи, без самих сущностей
+ */
+@Getter
+@AllArgsConstructor
+public class BookingOwnershipDto {
+    private Long id;
+    private BookingStatus status;
+    private Long ownerId;
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Future;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Один интервал в пакетном бронировании вещи
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSlotDto {
+
+    @NotNull
+    @Future
+    private LocalDateTime start;
+
+    @NotNull
+    @Future
+    private LocalDateTime end;
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Плоское представление бронирования для списков: выбирается запросом сразу в конструктор,
+ * без сущностей Booking, Item и User
+ */
+@Getter
+@AllArgsConstructor
+public class BookingView {
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private BookingStatus status;
+    private Long itemId;
+    private String itemName;
+    private String itemDescription;
+    private Boolean itemAvailable;
+    private Long itemOwnerId;
+    private Long itemRequestId;
+    private Long bookerId;
+    private String bookerName;
+    private String bookerEmail;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ближайший момент, когда у вещи начнётся или закончится какое-нибудь бронирование
+ */
+@Getter
+@AllArgsConstructor
+public class ItemBookingChangeDto {
+    private Long itemId;
+    private LocalDateTime changesAt;
+}
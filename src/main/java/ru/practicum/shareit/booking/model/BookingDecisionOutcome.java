@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.model;
+
+/**
+ * Итог решения владельца по бронированию в пакетном запросе
+ */
+public enum BookingDecisionOutcome {
+    APPROVED, //бронирование подтверждено
+    REJECTED, //бронирование отклонено
+    NOT_FOUND, //бронирования нет
+    NOT_OWNER, //вещь принадлежит другому пользователю
+    NOT_WAITING //по бронированию уже принято решение
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.model;
+
+/**
+ * Роль пользователя, от лица которого запрашиваются бронирования
+ */
+public enum BookingRole {
+    BOOKER, //автор бронирования
+    OWNER //владелец забронированной вещи
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.configuration;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Кэш второго уровня Hibernate на Caffeine JCache, регионы описаны в application.conf.
+ * Менеджер кэшей по умолчанию у провайдера один на JVM, поэтому каждой фабрике EntityManager
+ * выдаётся свой: несколько контекстов в одной JVM (например, в тестах) не делят записи из разных баз.
+ */
+@Configuration
+public class HibernateCacheConfig implements HibernatePropertiesCustomizer {
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        hibernateProperties.put(ConfigSettings.CACHE_MANAGER,
+                provider.getCacheManager(URI.create("shareit-" + UUID.randomUUID()), provider.getDefaultClassLoader()));
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Long>, ItemBookingSummaryRepositoryCustom {
+}
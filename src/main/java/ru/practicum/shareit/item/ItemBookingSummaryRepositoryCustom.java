@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+
+import java.util.Collection;
+
+public interface ItemBookingSummaryRepositoryCustom {
+
+    /**
+     * Вставляет или обновляет сводки одним батчем: MERGE в H2, insert ... on conflict в PostgreSQL.
+     * В отличие от save не читает строки заранее и не падает, если сводку той же вещи параллельно вставил другой запрос.
+     */
+    void upsertAll(Collection<ItemBookingSummary> summaries);
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+
+import java.util.Collection;
+
+public class ItemBookingSummaryRepositoryCustomImpl implements ItemBookingSummaryRepositoryCustom {
+
+    /**
+     * Стандартный MERGE: им пользуется H2. PostgreSQL знает MERGE только с 15-й версии
+     */
+    private static final String MERGE = "merge into item_booking_summary s " +
+            "using (values (cast(:itemId as bigint), cast(:lastBookingId as bigint), cast(:lastBookerId as bigint), " +
+            "cast(:nextBookingId as bigint), cast(:nextBookerId as bigint), cast(:validUntil as timestamp))) " +
+            "as v (item_id, last_booking_id, last_booker_id, next_booking_id, next_booker_id, valid_until) " +
+            "on s.item_id = v.item_id " +
+            "when matched then update set last_booking_id = v.last_booking_id, last_booker_id = v.last_booker_id, " +
+            "next_booking_id = v.next_booking_id, next_booker_id = v.next_booker_id, valid_until = v.valid_until " +
+            "when not matched then insert (item_id, last_booking_id, last_booker_id, next_booking_id, next_booker_id, valid_until) " +
+            "values (v.item_id, v.last_booking_id, v.last_booker_id, v.next_booking_id, v.next_booker_id, v.valid_until)";
+
+    private static final String INSERT_ON_CONFLICT = "insert into item_booking_summary " +
+            "(item_id, last_booking_id, last_booker_id, next_booking_id, next_booker_id, valid_until) " +
+            "values (:itemId, :lastBookingId, :lastBookerId, :nextBookingId, :nextBookerId, cast(:validUntil as timestamp)) " +
+            "on conflict (item_id) do update set last_booking_id = excluded.last_booking_id, " +
+            "last_booker_id = excluded.last_booker_id, next_booking_id = excluded.next_booking_id, " +
+            "next_booker_id = excluded.next_booker_id, valid_until = excluded.valid_until";
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    // выбирается по базе при первом вызове
+    private volatile String upsert;
+
+    @Autowired
+    public ItemBookingSummaryRepositoryCustomImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertAll(Collection<ItemBookingSummary> summaries) {
+        SqlParameterSource[] batch = summaries.stream()
+                .map(summary -> new MapSqlParameterSource()
+                        .addValue("itemId", summary.getItemId())
+                        .addValue("lastBookingId", summary.getLastBookingId())
+                        .addValue("lastBookerId", summary.getLastBookerId())
+                        .addValue("nextBookingId", summary.getNextBookingId())
+                        .addValue("nextBookerId", summary.getNextBookerId())
+                        .addValue("validUntil", summary.getValidUntil()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(upsert(), batch);
+    }
+
+    private String upsert() {
+        if (upsert == null) {
+            String database = jdbcTemplate.getJdbcOperations().execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsert = POSTGRESQL.equals(database) ? INSERT_ON_CONFLICT : MERGE;
+        }
+        return upsert;
+    }
+}
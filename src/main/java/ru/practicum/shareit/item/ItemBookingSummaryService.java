@@ -0,0 +1,142 @@
+package ru.practicum.shareit.item;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingChangeDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ведёт сводки последнего и следующего бронирования вещей.
+ * Сводка пересчитывается при создании бронирований вещи, а также при чтении, если наступил её validUntil,
+ * то есть какое-то бронирование вещи началось или закончилось.
+ * Последнее и следующее бронирования считаются без учёта статуса, поэтому подтверждение и отклонение сводку не меняют.
+ * Пересчёт идёт под блокировкой строк вещей, той же, что берёт создание бронирований: иначе чтение,
+ * посчитавшее сводку до коммита нового бронирования, могло бы записать её поверх свежей.
+ * Выгрузка устаревшие сводки только считает, без блокировки и записи.
+ */
+@Service
+public class ItemBookingSummaryService {
+
+    private final ItemBookingSummaryRepository summaryRepository;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+
+    @Autowired
+    public ItemBookingSummaryService(
+            ItemBookingSummaryRepository summaryRepository,
+            BookingRepository bookingRepository,
+            ItemRepository itemRepository
+    ) {
+        this.summaryRepository = summaryRepository;
+        this.bookingRepository = bookingRepository;
+        this.itemRepository = itemRepository;
+    }
+
+    /**
+     * Сводки по вещам. Актуальные читаются одним запросом по первичному ключу, остальные пересчитываются.
+     */
+    @Transactional
+    public Long2ObjectMap<ItemBookingSummary> getByItemIds(List<Long> itemIds) {
+        return getByItemIds(itemIds, true);
+    }
+
+    /**
+     * Как getByItemIds, но устаревшие сводки считаются без блокировки вещей и не сохраняются.
+     * Для долгих транзакций вроде выгрузки: иначе блокировки держались бы до их конца и останавливали
+     * создание бронирований этих вещей.
+     */
+    @Transactional(readOnly = true)
+    public Long2ObjectMap<ItemBookingSummary> peekByItemIds(List<Long> itemIds) {
+        return getByItemIds(itemIds, false);
+    }
+
+    private Long2ObjectMap<ItemBookingSummary> getByItemIds(List<Long> itemIds, boolean store) {
+        LocalDateTime now = LocalDateTime.now();
+        Long2ObjectMap<ItemBookingSummary> summaries = new Long2ObjectOpenHashMap<>(itemIds.size());
+        if (itemIds.isEmpty()) {
+            return summaries;
+        }
+        summaryRepository.findAllById(itemIds).forEach(summary -> {
+            if (summary.isValidAt(now)) {
+                summaries.put(summary.getItemId().longValue(), summary);
+            }
+        });
+        List<Long> outdated = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            if (!summaries.containsKey(itemId.longValue())) {
+                outdated.add(itemId);
+            }
+        }
+        if (!outdated.isEmpty()) {
+            summaries.putAll(store ? refreshLocked(outdated) : compute(outdated));
+        }
+        return summaries;
+    }
+
+    @Transactional
+    public void refresh(Collection<Long> itemIds) {
+        if (!itemIds.isEmpty()) {
+            refreshLocked(new ArrayList<>(itemIds));
+        }
+    }
+
+    /**
+     * Блокировка берётся до чтения бронирований: после неё видны все бронирования, закоммиченные
+     * параллельными create, а новые не появятся до конца транзакции. Для create и createAll
+     * это повторная блокировка уже захваченной ими строки.
+     */
+    private Long2ObjectMap<ItemBookingSummary> refreshLocked(List<Long> itemIds) {
+        itemRepository.lockAllById(itemIds);
+        Long2ObjectMap<ItemBookingSummary> summaries = compute(itemIds);
+        summaryRepository.upsertAll(summaries.values());
+        return summaries;
+    }
+
+    private Long2ObjectMap<ItemBookingSummary> compute(List<Long> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        return summarize(
+                itemIds,
+                bookingRepository.findLastItemBookings(itemIds, now),
+                bookingRepository.findNextItemBookings(itemIds, now),
+                bookingRepository.findNextChanges(itemIds, now)
+        );
+    }
+
+    /**
+     * Раскладывает последние и следующие бронирования по сводкам вещей за один проход по каждому списку.
+     * Если у вещи несколько кандидатов с одинаковым временем, побеждает последний, как и раньше.
+     */
+    static Long2ObjectMap<ItemBookingSummary> summarize(
+            List<Long> itemIds,
+            List<Booking> lastBookings,
+            List<Booking> nextBookings,
+            List<ItemBookingChangeDto> changes
+    ) {
+        Long2ObjectMap<ItemBookingSummary> summaries = new Long2ObjectOpenHashMap<>(itemIds.size());
+        itemIds.forEach(itemId -> summaries.put(itemId.longValue(), new ItemBookingSummary(itemId)));
+        for (Booking booking : lastBookings) {
+            ItemBookingSummary summary = summaries.get(booking.getItem().getId().longValue());
+            summary.setLastBookingId(booking.getId());
+            summary.setLastBookerId(booking.getBooker().getId());
+        }
+        for (Booking booking : nextBookings) {
+            ItemBookingSummary summary = summaries.get(booking.getItem().getId().longValue());
+            summary.setNextBookingId(booking.getId());
+            summary.setNextBookerId(booking.getBooker().getId());
+        }
+        for (ItemBookingChangeDto change : changes) {
+            summaries.get(change.getItemId().longValue()).setValidUntil(change.getChangesAt());
+        }
+        return summaries;
+    }
+}
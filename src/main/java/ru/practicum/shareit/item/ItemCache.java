@@ -0,0 +1,114 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSnapshot;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш вещей по id с чтением из базы при промахе. Хранит неизменяемые снимки, поэтому отдавать их
+ * можно кому угодно без копирования. Объём ограничен оценкой памяти снимков (shareit.item-cache.max-weight, байт).
+ * Снимок новее по версии всегда вытесняет старый, а старый не может перезаписать новый:
+ * запись, прочитанная до обновления вещи, не переживёт обновление. Записи мимо этого кэша — другим экземпляром
+ * сервиса, прямо в базу — он не видит, поэтому снимок живёт не дольше shareit.item-cache.expire-after-write,
+ * как и записи кэша второго уровня Hibernate. Сохранение по устаревшему снимку упадёт на проверке @Version.
+ */
+@Component
+public class ItemCache {
+
+    static final String NAME = "item";
+    private static final int SNAPSHOT_OVERHEAD = 96;
+
+    private final ItemRepository itemRepository;
+    private final Cache<Long, ItemSnapshot> cache;
+
+    @Autowired
+    public ItemCache(
+            ItemRepository itemRepository,
+            MeterRegistry meterRegistry,
+            @Value("${shareit.item-cache.max-weight:16777216}") long maxWeight,
+            @Value("${shareit.item-cache.expire-after-write:10m}") Duration expireAfterWrite
+    ) {
+        this(itemRepository, meterRegistry, maxWeight, expireAfterWrite, ForkJoinPool.commonPool(), Ticker.systemTicker());
+    }
+
+    ItemCache(
+            ItemRepository itemRepository,
+            MeterRegistry meterRegistry,
+            long maxWeight,
+            Duration expireAfterWrite,
+            Executor executor,
+            Ticker ticker
+    ) {
+        this.itemRepository = itemRepository;
+        this.cache = Caffeine.newBuilder()
+                .executor(executor)
+                .ticker(ticker)
+                .maximumWeight(maxWeight)
+                .weigher(ItemCache::weigh)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    public Optional<ItemSnapshot> get(Long itemId) {
+        return Optional.ofNullable(cache.get(itemId, id -> itemRepository.findById(id).map(ItemSnapshot::of).orElse(null)));
+    }
+
+    /**
+     * Снимки найденных вещей по id, промахи дочитываются одним запросом
+     */
+    public Map<Long, ItemSnapshot> getAll(Collection<Long> itemIds) {
+        Map<Long, ItemSnapshot> snapshots = new HashMap<>(cache.getAllPresent(itemIds));
+        List<Long> missing = itemIds.stream()
+                .filter(id -> !snapshots.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            for (Item item : itemRepository.findAllWithRequestByIdIn(missing)) {
+                snapshots.put(item.getId(), putNewer(ItemSnapshot.of(item)));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Вызывается после сохранения вещи: кладёт её новую версию
+     */
+    public void put(Item item) {
+        putNewer(ItemSnapshot.of(item));
+    }
+
+    public void invalidate(Long itemId) {
+        cache.invalidate(itemId);
+    }
+
+    private ItemSnapshot putNewer(ItemSnapshot snapshot) {
+        return cache.asMap().merge(snapshot.getId(), snapshot,
+                (cached, fresh) -> fresh.getVersion() >= cached.getVersion() ? fresh : cached);
+    }
+
+    /**
+     * Примерный размер снимка в байтах: заголовки объектов и строки по два байта на символ
+     */
+    private static int weigh(Long id, ItemSnapshot snapshot) {
+        int chars = snapshot.getName().length() + (snapshot.getDescription() == null ? 0 : snapshot.getDescription().length());
+        return SNAPSHOT_OVERHEAD + 2 * chars;
+    }
+}
@@ -1,15 +1,28 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentRequestDto;
 import ru.practicum.shareit.error.exeptions.CommentIsEmptyException;
+import ru.practicum.shareit.error.exeptions.ItemValidationException;
+import ru.practicum.shareit.error.exeptions.PaginationValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.ItemSearchMode;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
@@ -17,11 +30,18 @@ import java.util.List;
 @RestController
 @RequestMapping("/items")
 public class ItemController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final ItemServiceImpl itemService;
+    private final ObjectWriter itemWriter;
 
     @Autowired
-    public ItemController(ItemServiceImpl itemService) {
+    public ItemController(ItemServiceImpl itemService, ObjectMapper objectMapper) {
         this.itemService = itemService;
+        this.itemWriter = objectMapper.writerFor(ItemDto.class);
     }
 
     @PostMapping
@@ -47,17 +67,91 @@ public class ItemController {
         return itemService.getByIdWithBookings(userId, itemId);
     }
 
+    /**
+     * Без параметров отдаёт все вещи владельца. Если передан size или afterId, отдаёт страницу вещей
+     * с id больше afterId, а при заполненной странице кладёт id последней вещи в заголовок X-Next-Cursor.
+     */
     @GetMapping
-    public List<ItemDto> findAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemService.getAllByUserId(userId);
+    public ResponseEntity<List<ItemDto>> findAllByUserId(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size
+    ) {
+        if (afterId == null && size == null) {
+            return ResponseEntity.ok(itemService.getAllByUserId(userId));
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize <= 0 || (afterId != null && afterId < 0)) {
+            throw new PaginationValidationException("Ошибка в параметрах пагинации");
+        }
+        List<ItemDto> items = itemService.getPageByUserId(userId, afterId == null ? 0 : afterId, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(items.get(items.size() - 1).getId()));
+        }
+        return response.body(items);
     }
 
+    /**
+     * Полная выгрузка вещей владельца построчным JSON (NDJSON), пишется в ответ по мере чтения из базы.
+     */
+    @GetMapping(params = "stream=true", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        StreamingResponseBody body = outputStream -> itemService.exportAllByUserId(userId, itemDto -> {
+            try {
+                itemWriter.writeValue(outputStream, itemDto);
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * По умолчанию ищет подстроку в описании. В режиме FULLTEXT ищет по словам в названии и описании,
+     * в режиме FUZZY так же, но с опечатками; выдача этих режимов упорядочена по релевантности.
+     * Если переданы start и end, отдаёт только вещи без ожидающих и подтверждённых бронирований в этом окне.
+     */
     @GetMapping("/search")
     //тут почему-то NotBlank никак не реагирует на бланк
-    public List<ItemDto> searchByName(@RequestParam @NotBlank String text) {
+    public List<ItemDto> searchByName(
+            @RequestParam @NotBlank String text,
+            @RequestParam(defaultValue = "SUBSTRING") ItemSearchMode mode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "0") Integer from,
+            @RequestParam(defaultValue = "20") Integer size
+    ) {
+        if (from < 0 || size <= 0) {
+            throw new PaginationValidationException("Ошибка в параметрах пагинации");
+        }
+        if ((start == null) != (end == null) || (start != null && !start.isBefore(end))) {
+            throw new ItemValidationException("Окно дат задаётся парой start и end, start раньше end");
+        }
         if (text.isBlank()) {
             return Collections.emptyList();
         }
-        return itemService.searchByName(text);
+        if (start != null) {
+            return itemService.searchFreeByName(text, mode, start, end, from, size);
+        }
+        return itemService.searchByName(text, mode, from, size);
+    }
+
+    /**
+     * Подсказки для строки поиска по набранному префиксу, самые популярные первыми
+     */
+    @GetMapping("/suggest")
+    public List<ItemSuggestionDto> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") Integer limit
+    ) {
+        if (limit <= 0 || limit > MAX_SUGGESTIONS) {
+            throw new PaginationValidationException("Ошибка в параметрах пагинации");
+        }
+        if (prefix.isBlank()) {
+            return Collections.emptyList();
+        }
+        return itemService.suggest(prefix, limit);
     }
 }
@@ -1,12 +1,76 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
+    String FETCH_REQUEST = "select i from Item i left join fetch i.request r left join fetch r.requester ";
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findAllByOwnerIdOrderById(Long userId);
 
-    List<Item> findAllByDescriptionContainingIgnoreCaseAndIsAvailableIsTrue(String name);
+    /**
+     * Страница вещей владельца по ключу id: вещи с id больше afterId по возрастанию id.
+     */
+    @Query(FETCH_REQUEST + "where i.owner.id = :ownerId and i.id > :afterId order by i.id")
+    List<Item> findPageByOwnerId(@Param("ownerId") Long ownerId, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Все вещи владельца курсором по возрастанию id. Поток нужно закрыть и читать внутри транзакции.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(FETCH_REQUEST + "where i.owner.id = :ownerId order by i.id")
+    Stream<Item> streamAllByOwnerId(@Param("ownerId") Long ownerId);
+
+    /**
+     * Все вещи по ключу id: вещи с id больше afterId по возрастанию id.
+     */
+    @Query(FETCH_REQUEST + "where i.id > :afterId order by i.id")
+    List<Item> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(FETCH_REQUEST + "where i.id in :ids")
+    List<Item> findAllWithRequestByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Id вещей из ids, у которых нет активных (WAITING и APPROVED) бронирований, пересекающих [start, end].
+     * Границы включаются так же, как в проверке пересечения при бронировании.
+     * Подзапрос читает только индекс ix_bookings_item_window.
+     */
+    @Query("select i.id from Item i " +
+            "where i.id in :ids " +
+            "and not exists (select b.id from Booking b " +
+            "where b.item.id = i.id " +
+            "and b.startDate <= :end and b.endDate >= :start " +
+            "and b.status in (ru.practicum.shareit.booking.model.BookingStatus.WAITING, " +
+            "ru.practicum.shareit.booking.model.BookingStatus.APPROVED))")
+    List<Long> findFreeIds(
+            @Param("ids") Collection<Long> ids,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = :id")
+    Optional<Item> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Та же блокировка, что и у findByIdForUpdate, сразу на несколько вещей и без загрузки сущностей.
+     * Строки блокируются по возрастанию id, поэтому два таких вызова не ждут друг друга по кругу.
+     */
+    @Query(value = "select id from items where id in (:ids) order by id for update", nativeQuery = true)
+    List<Long> lockAllById(@Param("ids") Collection<Long> ids);
 }
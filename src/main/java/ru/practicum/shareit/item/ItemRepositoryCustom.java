@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * Карточка вещи одним SQL-запросом: поля вещи, id владельца, комментарии с именами авторов
+     * и, если userId — владелец, последнее и следующее относительно now бронирования.
+     */
+    Optional<ItemDto> findDetailsById(Long itemId, Long userId, LocalDateTime now);
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Optional;
+
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+    /**
+     * Вещь соединяется со своими комментариями, по строке на комментарий. Последнее и следующее бронирования
+     * выбираются подзапросами с limit 1 по индексам ix_bookings_item_end и ix_bookings_item_window
+     * и присоединяются только для владельца, поэтому вычисляются один раз, а не для каждой строки.
+     */
+    static final String DETAILS = "select i.id, i.name, i.description, i.is_available, i.owner_id, i.request_id, " +
+            "lb.id last_booking_id, lb.booker_id last_booker_id, nb.id next_booking_id, nb.booker_id next_booker_id, " +
+            "c.id comment_id, c.text comment_text, c.created comment_created, u.name author_name " +
+            "from items i " +
+            "left join (select b.id, b.booker_id from bookings b " +
+            "where b.item_id = :itemId and b.end_time < :now order by b.end_time desc limit 1) lb " +
+            "on i.owner_id = :userId " +
+            "left join (select b.id, b.booker_id from bookings b " +
+            "where b.item_id = :itemId and b.start_time > :now order by b.start_time limit 1) nb " +
+            "on i.owner_id = :userId " +
+            "left join comments c on c.item_id = i.id " +
+            "left join users u on u.id = c.author_id " +
+            "where i.id = :itemId " +
+            "order by c.id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ItemRepositoryCustomImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<ItemDto> findDetailsById(Long itemId, Long userId, LocalDateTime now) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("itemId", itemId)
+                .addValue("userId", userId)
+                .addValue("now", now);
+        return Optional.ofNullable(jdbcTemplate.query(DETAILS, params, this::toItemDto));
+    }
+
+    private ItemDto toItemDto(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            return null;
+        }
+        ItemDto itemDto = ItemDto.builder()
+                .id(rs.getLong("id"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .available(rs.getObject("is_available", Boolean.class))
+                .owner(rs.getObject("owner_id", Long.class))
+                .requestId(rs.getObject("request_id", Long.class))
+                .lastBooking(toBooking(rs, "last_booking_id", "last_booker_id"))
+                .nextBooking(toBooking(rs, "next_booking_id", "next_booker_id"))
+                .comments(new ArrayList<>())
+                .build();
+        do {
+            Long commentId = rs.getObject("comment_id", Long.class);
+            if (commentId != null) {
+                itemDto.getComments().add(new CommentDto(
+                        commentId,
+                        rs.getString("comment_text"),
+                        rs.getString("author_name"),
+                        rs.getObject("comment_created", LocalDateTime.class)
+                ));
+            }
+        } while (rs.next());
+        return itemDto;
+    }
+
+    private static ItemBookingDto toBooking(ResultSet rs, String idColumn, String bookerColumn) throws SQLException {
+        Long id = rs.getObject(idColumn, Long.class);
+        if (id == null) {
+            return null;
+        }
+        return ItemBookingDto.builder()
+                .id(id)
+                .bookerId(rs.getObject(bookerColumn, Long.class))
+                .build();
+    }
+}
@@ -0,0 +1,277 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchMode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш результатов поиска вещей: страница id по нормализованному запросу. Вытеснение W-TinyLFU (Caffeine),
+ * объём ограничен суммарным числом id во всех страницах.
+ * Новая вещь меняет статистику BM25 (число документов и среднюю длину), а с ней оценки и порядок любой
+ * ранжированной выдачи, поэтому при создании вещи сбрасываются все FULLTEXT- и FUZZY-страницы,
+ * а SUBSTRING — только те, под которые подходит вещь. При изменении вещи сбрасываются только страницы,
+ * под которые подходит старая или новая версия; сдвиг средней длины документа от одной вещи
+ * может переставить близкие по оценке вещи в остальных ранжированных страницах до их вытеснения.
+ * Чтобы запись не перебирала весь кэш, запрос разбирается один раз при сохранении страницы:
+ * FULLTEXT-страницы лежат в индексе по словам запроса, SUBSTRING — по одной из триграмм подстроки,
+ * FUZZY хранят готовые автоматы правок. При записи проверяются только страницы-кандидаты.
+ */
+@Component
+public class ItemSearchCache {
+
+    static final String NAME = "itemSearch";
+    private static final long MAX_WEIGHT = 100_000;
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final ItemSearchIndex itemSearchIndex;
+    private final Cache<Key, Page> cache;
+    // загрузка кладёт страницу, только если за время поиска не было записей вещей:
+    // иначе страница, посчитанная по старому индексу, пережила бы свою инвалидацию
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long generation;
+    // страницы из кэша, разложенные для инвалидации; страница убирается отсюда, когда покидает кэш
+    private final Map<String, Set<Page>> byTerm = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Page>> byGram = new ConcurrentHashMap<>();
+    private final Set<Page> scanned = ConcurrentHashMap.newKeySet();
+    // все FULLTEXT- и FUZZY-страницы, их сбрасывает создание любой вещи
+    private final Set<Page> ranked = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ItemSearchCache(ItemSearchIndex itemSearchIndex, MeterRegistry meterRegistry) {
+        this.itemSearchIndex = itemSearchIndex;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(MAX_WEIGHT)
+                .weigher((Key key, Page page) -> 1 + page.getIds().size())
+                // вызывается синхронно, пока вытесняемая страница ещё не заменена новой
+                .evictionListener((Key key, Page page, RemovalCause cause) -> unindex(page))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        Gauge.builder("item.search.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Доля запросов поиска вещей, отданных из кэша")
+                .register(meterRegistry);
+    }
+
+    public List<Long> get(String text, ItemSearchMode mode, long offset, int size, Supplier<List<Long>> search) {
+        Key key = new Key(normalize(text, mode), mode, offset, size);
+        Page cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.getIds();
+        }
+        long stamp = generation();
+        Page page = page(key, List.copyOf(search.get()));
+        lock.readLock().lock();
+        try {
+            if (generation == stamp) {
+                cache.asMap().compute(key, (k, previous) -> {
+                    if (previous != null) {
+                        unindex(previous);
+                    }
+                    index(page);
+                    return page;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page.getIds();
+    }
+
+    /**
+     * Вызывается после того, как вещь записана в индексы. previous — версия вещи до записи, null для новой вещи.
+     */
+    public void invalidate(Item previous, Item current) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            Set<Page> affected = new HashSet<>();
+            if (previous == null) {
+                affected.addAll(ranked);
+            }
+            collectAffected(previous, affected);
+            collectAffected(current, affected);
+            for (Page page : affected) {
+                cache.asMap().remove(page.getKey(), page);
+                unindex(page);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Страницы, на выдачу которых может повлиять версия вещи. FULLTEXT и FUZZY: хотя бы одно слово запроса
+     * совпадает со словом вещи (для FUZZY — с точностью до допустимых правок); одного слова достаточно,
+     * так как оно меняет статистику BM25 этого слова и тем самым порядок выдачи. Запросы с операторами считаем затронутыми.
+     * SUBSTRING: подстрока есть в описании, доступность не учитывается.
+     */
+    private void collectAffected(Item item, Set<Page> affected) {
+        if (item == null) {
+            return;
+        }
+        Set<String> terms = itemSearchIndex.itemTerms(item);
+        for (String term : terms) {
+            affected.addAll(byTerm.getOrDefault(term, Set.of()));
+        }
+        String description = item.getDescription() == null ? null : ItemSubstringIndex.normalize(item.getDescription());
+        if (description != null) {
+            for (long gram : ItemSubstringIndex.grams(description)) {
+                for (Page page : byGram.getOrDefault(gram, Set.of())) {
+                    if (description.contains(page.getKey().getText())) {
+                        affected.add(page);
+                    }
+                }
+            }
+        }
+        for (Page page : scanned) {
+            if (page.matchesAny(terms, description)) {
+                affected.add(page);
+            }
+        }
+    }
+
+    /**
+     * Разбирает запрос страницы до того, как она попадёт в кэш
+     */
+    private Page page(Key key, List<Long> ids) {
+        if (key.getMode() == ItemSearchMode.SUBSTRING) {
+            long[] grams = ItemSubstringIndex.grams(key.getText());
+            // подстрока короче триграммы проверяется при каждой записи
+            return grams.length == 0 ? new Page(key, ids, null, null, null) : new Page(key, ids, null, grams[0], null);
+        }
+        List<String> terms = itemSearchIndex.queryTerms(key.getText(), key.getMode());
+        if (terms == null || key.getMode() == ItemSearchMode.FULLTEXT) {
+            return new Page(key, ids, terms, null, null);
+        }
+        List<CharacterRunAutomaton> automata = new ArrayList<>(terms.size());
+        terms.forEach(term -> automata.add(ItemSearchIndex.fuzzyAutomaton(term)));
+        return new Page(key, ids, null, null, automata);
+    }
+
+    private void index(Page page) {
+        if (page.getKey().getMode() != ItemSearchMode.SUBSTRING) {
+            ranked.add(page);
+        }
+        if (page.getTerms() != null) {
+            page.getTerms().forEach(term -> add(byTerm, term, page));
+        } else if (page.getGram() != null) {
+            add(byGram, page.getGram(), page);
+        } else {
+            scanned.add(page);
+        }
+    }
+
+    private void unindex(Page page) {
+        ranked.remove(page);
+        if (page.getTerms() != null) {
+            page.getTerms().forEach(term -> remove(byTerm, term, page));
+        } else if (page.getGram() != null) {
+            remove(byGram, page.getGram(), page);
+        } else {
+            scanned.remove(page);
+        }
+    }
+
+    private static <K> void add(Map<K, Set<Page>> index, K key, Page page) {
+        index.compute(key, (k, pages) -> {
+            Set<Page> result = pages == null ? ConcurrentHashMap.newKeySet() : pages;
+            result.add(page);
+            return result;
+        });
+    }
+
+    private static <K> void remove(Map<K, Set<Page>> index, K key, Page page) {
+        index.computeIfPresent(key, (k, pages) -> {
+            pages.remove(page);
+            return pages.isEmpty() ? null : pages;
+        });
+    }
+
+    private long generation() {
+        lock.readLock().lock();
+        try {
+            return generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Подстрока ищется буквально, поэтому в ней только приводим регистр.
+     * В поиске по словам регистр и пробелы между словами на выдачу не влияют.
+     */
+    private static String normalize(String text, ItemSearchMode mode) {
+        String normalized = text.toLowerCase(Locale.ROOT);
+        if (mode == ItemSearchMode.SUBSTRING) {
+            return normalized;
+        }
+        return SPACES.matcher(normalized.strip()).replaceAll(" ");
+    }
+
+    @Value
+    private static class Key {
+        String text;
+        ItemSearchMode mode;
+        long offset;
+        int size;
+    }
+
+    /**
+     * Страница выдачи с разобранным запросом. Задано не больше одного из terms, gram и automata;
+     * если ни одного, страница лежит в scanned. Сравнивается по ссылке: из индексов убирается
+     * ровно та страница, что покинула кэш, а не пришедшая ей на смену.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static final class Page {
+        private final Key key;
+        private final List<Long> ids;
+        private final List<String> terms;
+        private final Long gram;
+        private final List<CharacterRunAutomaton> automata;
+
+        /**
+         * Проверка страниц из scanned: запросы с операторами, короткие подстроки и FUZZY.
+         * description — нормализованное описание вещи или null
+         */
+        boolean matchesAny(Set<String> itemTerms, String description) {
+            if (key.getMode() == ItemSearchMode.SUBSTRING) {
+                return description != null && description.contains(key.getText());
+            }
+            if (automata == null) {
+                return true;
+            }
+            for (CharacterRunAutomaton automaton : automata) {
+                for (String itemTerm : itemTerms) {
+                    if (automaton.run(itemTerm)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
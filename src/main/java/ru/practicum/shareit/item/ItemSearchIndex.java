@@ -0,0 +1,259 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.QueryTimeoutImpl;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.LevenshteinAutomata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchMode;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Полнотекстовый индекс вещей в памяти (Lucene). Название и описание разбираются русским анализатором
+ * со стеммингом, совпадение в названии весит вдвое больше, чем в описании, ранжирование по BM25.
+ * Обслуживает режимы поиска FULLTEXT и FUZZY.
+ * База остаётся источником истины: индекс строится из неё при старте и обновляется при каждой записи вещи.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String DESCRIPTION = "description";
+    private static final String AVAILABLE = "available";
+    private static final int LOAD_PAGE = 1000;
+    private static final int FUZZY_MAX_EXPANSIONS = 50;
+    private static final long FUZZY_TIMEOUT_MS = 50;
+    private static final Pattern QUERY_OPERATORS = Pattern.compile("[+|\\-\"*()~\\\\]");
+
+    private final ItemRepository itemRepository;
+    private final Analyzer analyzer = new RussianAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    @Autowired
+    public ItemSearchIndex(ItemRepository itemRepository) throws IOException {
+        this.itemRepository = itemRepository;
+        this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * Записи вещей ждут окончания загрузки, поэтому вещь, изменённая во время загрузки,
+     * попадёт в индекс в последней версии.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long afterId = 0;
+        int count = 0;
+        List<Item> items;
+        do {
+            items = itemRepository.findPageAfter(afterId, PageRequest.of(0, LOAD_PAGE));
+            for (Item item : items) {
+                write(item);
+                afterId = item.getId();
+            }
+            count += items.size();
+        } while (items.size() == LOAD_PAGE);
+        refresh();
+        log.info("Поисковый индекс вещей построен, вещей: {}", count);
+    }
+
+    public synchronized void put(Item item) {
+        write(item);
+        refresh();
+    }
+
+    /**
+     * Id доступных вещей, подходящих под запрос, в порядке убывания релевантности.
+     * В режиме FUZZY слова запроса ищутся с опечатками, а поиск ограничен по времени:
+     * по истечении FUZZY_TIMEOUT_MS отдаётся то, что успели найти.
+     */
+    public List<Long> search(String text, ItemSearchMode mode, long from, int size) {
+        Query textQuery = mode == ItemSearchMode.FUZZY ? fuzzyQuery(text) : fullTextQuery(text);
+        if (textQuery == null) {
+            return List.of();
+        }
+        Query query = new BooleanQuery.Builder()
+                .add(textQuery, BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(AVAILABLE, Boolean.TRUE.toString())), BooleanClause.Occur.FILTER)
+                .build();
+        try {
+            IndexSearcher acquired = searcherManager.acquire();
+            try {
+                IndexSearcher searcher = acquired;
+                if (mode == ItemSearchMode.FUZZY) {
+                    // таймаут задаётся на поисковике, поэтому общий из SearcherManager не трогаем;
+                    // раскрытие автоматов ограничено FUZZY_MAX_EXPANSIONS, по времени ограничиваем обход документов
+                    searcher = new IndexSearcher(acquired.getIndexReader());
+                    query = searcher.rewrite(query);
+                    searcher.setTimeout(new QueryTimeoutImpl(FUZZY_TIMEOUT_MS));
+                }
+                TopDocs topDocs = searcher.search(query, (int) Math.min(from + size, Integer.MAX_VALUE));
+                if (searcher.timedOut()) {
+                    log.warn("Нечёткий поиск '{}' не уложился в {} мс", text, FUZZY_TIMEOUT_MS);
+                }
+                ScoreDoc[] hits = topDocs.scoreDocs;
+                List<Long> ids = new ArrayList<>(hits.length);
+                for (long i = from; i < hits.length; i++) {
+                    Document document = searcher.doc(hits[(int) i].doc);
+                    ids.add(document.getField(ID).numericValue().longValue());
+                }
+                return ids;
+            } finally {
+                searcherManager.release(acquired);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query fullTextQuery(String text) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, Map.of(NAME, 2f, DESCRIPTION, 1f));
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        return parser.parse(text);
+    }
+
+    /**
+     * Каждое слово запроса после стемминга должно найтись в названии или описании с точностью
+     * до maxEdits(слово) правок, перестановка соседних букв считается одной правкой.
+     * Автомат Левенштейна раскрывается не более чем в FUZZY_MAX_EXPANSIONS терминов словаря.
+     */
+    private Query fuzzyQuery(String text) {
+        List<String> terms = terms(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String term : terms) {
+            int edits = maxEdits(term);
+            Query name = new FuzzyQuery(new Term(NAME, term), edits, 0, FUZZY_MAX_EXPANSIONS, true);
+            Query description = new FuzzyQuery(new Term(DESCRIPTION, term), edits, 0, FUZZY_MAX_EXPANSIONS, true);
+            builder.add(new BooleanQuery.Builder()
+                    .add(new BoostQuery(name, 2f), BooleanClause.Occur.SHOULD)
+                    .add(description, BooleanClause.Occur.SHOULD)
+                    .build(), BooleanClause.Occur.MUST);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Слова названия и описания вещи после анализатора: с ними сравниваются слова запросов FULLTEXT и FUZZY
+     */
+    Set<String> itemTerms(Item item) {
+        Set<String> itemTerms = new HashSet<>(terms(item.getName()));
+        if (item.getDescription() != null) {
+            itemTerms.addAll(terms(item.getDescription()));
+        }
+        return itemTerms;
+    }
+
+    /**
+     * Слова запроса после анализатора. Для запроса FULLTEXT с операторами SimpleQueryParser — null:
+     * по словам такой запрос не проверить
+     */
+    List<String> queryTerms(String text, ItemSearchMode mode) {
+        if (mode == ItemSearchMode.FULLTEXT && QUERY_OPERATORS.matcher(text).find()) {
+            return null;
+        }
+        return terms(text);
+    }
+
+    /**
+     * Принимает слова вещи, которые FUZZY-запрос находит по слову term: с тем же числом допустимых правок
+     */
+    static CharacterRunAutomaton fuzzyAutomaton(String term) {
+        return new CharacterRunAutomaton(new LevenshteinAutomata(term, true).toAutomaton(maxEdits(term)));
+    }
+
+    private List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute attribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(attribute.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() < 3) {
+            return 0;
+        }
+        return term.length() < 6 ? 1 : 2;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+
+    private void write(Item item) {
+        Document document = new Document();
+        document.add(new StringField(ID, item.getId().toString(), Field.Store.NO));
+        document.add(new StoredField(ID, item.getId()));
+        document.add(new TextField(NAME, item.getName(), Field.Store.NO));
+        if (item.getDescription() != null) {
+            document.add(new TextField(DESCRIPTION, item.getDescription(), Field.Store.NO));
+        }
+        document.add(new StringField(AVAILABLE, String.valueOf(Boolean.TRUE.equals(item.getIsAvailable())), Field.Store.NO));
+        try {
+            writer.updateDocument(new Term(ID, item.getId().toString()), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,8 +2,12 @@ package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.ItemSearchMode;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 interface ItemService {
     ItemDto create(Long userId, ItemDto itemDto);
@@ -14,7 +18,15 @@ interface ItemService {
 
     List<ItemDto> getAllByUserId(Long userId);
 
-    List<ItemDto> searchByName(String text);
+    List<ItemDto> getPageByUserId(Long userId, Long afterId, int size);
+
+    void exportAllByUserId(Long userId, Consumer<ItemDto> consumer);
+
+    List<ItemDto> searchByName(String text, ItemSearchMode mode, int from, int size);
+
+    List<ItemDto> searchFreeByName(String text, ItemSearchMode mode, LocalDateTime start, LocalDateTime end, int from, int size);
+
+    List<ItemSuggestionDto> suggest(String prefix, int limit);
 
     CommentDto createComment(Long userId, Long itemId, String text);
 }
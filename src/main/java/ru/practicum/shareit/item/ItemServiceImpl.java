@@ -1,7 +1,13 @@
 package ru.practicum.shareit.item;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.comment.CommentRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
@@ -14,26 +20,51 @@ import ru.practicum.shareit.error.exeptions.UserNotFoundException;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.model.ItemSearchMode;
+import ru.practicum.shareit.item.model.ItemSnapshot;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserExistenceCache;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ItemServiceImpl implements ItemService {
 
+    private static final int EXPORT_CHUNK = 500;
+    private static final int FREE_CANDIDATE_BATCH = 1000;
+
     private final ItemValidation itemValidation;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemBookingSummaryService itemBookingSummaryService;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSubstringIndex itemSubstringIndex;
+    private final ItemSuggestIndex itemSuggestIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemCache itemCache;
+    private final UserExistenceCache userExistenceCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
     public ItemServiceImpl(
@@ -42,7 +73,14 @@ public class ItemServiceImpl implements ItemService {
             UserRepository userRepository,
             BookingRepository bookingRepository,
             CommentRepository commentRepository,
-            ItemRequestRepository itemRequestRepository
+            ItemRequestRepository itemRequestRepository,
+            ItemBookingSummaryService itemBookingSummaryService,
+            ItemSearchIndex itemSearchIndex,
+            ItemSubstringIndex itemSubstringIndex,
+            ItemSuggestIndex itemSuggestIndex,
+            ItemSearchCache itemSearchCache,
+            ItemCache itemCache,
+            UserExistenceCache userExistenceCache
     ) {
         this.itemValidation = itemValidation;
         this.itemRepository = itemRepository;
@@ -50,13 +88,18 @@ public class ItemServiceImpl implements ItemService {
         this.bookingRepository = bookingRepository;
         this.commentRepository = commentRepository;
         this.itemRequestRepository = itemRequestRepository;
+        this.itemBookingSummaryService = itemBookingSummaryService;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemSubstringIndex = itemSubstringIndex;
+        this.itemSuggestIndex = itemSuggestIndex;
+        this.itemSearchCache = itemSearchCache;
+        this.itemCache = itemCache;
+        this.userExistenceCache = userExistenceCache;
     }
 
     public ItemDto create(Long userId, ItemDto itemDto) {
         itemDto.setOwner(userId);
-        User user = userRepository.findById(userId).orElseThrow(
-                () -> new UserNotFoundException(String.format("Юзер с id %d не найден", userId))
-        );
+        User user = getOwnerReference(userId);
         itemValidation.validateCreation(itemDto);
         itemDto.setOwner(userId);
         ItemRequest itemRequest = null;
@@ -66,6 +109,7 @@ public class ItemServiceImpl implements ItemService {
             );
         }
         Item item = itemRepository.save(ItemMapper.toObject(itemDto, user, itemRequest));
+        reindex(null, item);
         itemDto.setId(item.getId());
         return itemDto;
     }
@@ -73,11 +117,35 @@ public class ItemServiceImpl implements ItemService {
     public ItemDto update(Long userId, Long itemId, ItemDto itemDto) {
         itemDto.setId(itemId);
         itemDto.setOwner(userId);
-        User user = userRepository.findById(userId).orElseThrow(
-                () -> new UserNotFoundException(String.format("Юзер с id %d не найден", userId))
-        );
-        Item updatedItem = itemValidation.validateUpdateAndGet(itemDto);
-        ItemDto updatedItemDto = ItemMapper.toDto(updatedItem);
+        User user = getOwnerReference(userId);
+        try {
+            return applyUpdate(itemDto, user);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // вещь изменили после того, как её снимок попал в кэш: перечитываем из базы и применяем изменения заново
+            itemCache.invalidate(itemId);
+            entityManager.getEntityManagerFactory().getCache().evict(Item.class, itemId);
+            return applyUpdate(itemDto, user);
+        }
+    }
+
+    /**
+     * Владелец нужен вещи только как внешний ключ, поэтому вместо строки пользователя берётся прокси
+     */
+    private User getOwnerReference(Long userId) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(String.format("Юзер с id %d не найден", userId));
+        }
+        return userRepository.getReferenceById(userId);
+    }
+
+    /**
+     * Сохраняет вещь с версией снимка, по которому применялись изменения, поэтому запись по устаревшему
+     * снимку не пройдёт проверку @Version.
+     */
+    private ItemDto applyUpdate(ItemDto itemDto, User user) {
+        ItemSnapshot current = itemValidation.validateUpdateAndGet(itemDto);
+        ItemDto updatedItemDto = ItemMapper.toDto(current);
+        Item previousItem = ItemMapper.toObject(updatedItemDto, user, null);
         if (itemDto.getAvailable() != null && updatedItemDto.getAvailable() != itemDto.getAvailable()) {
             updatedItemDto.setAvailable(itemDto.getAvailable());
         }
@@ -87,23 +155,18 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getName() != null && !Objects.equals(updatedItemDto.getName(), itemDto.getName())) {
             updatedItemDto.setName(itemDto.getName());
         }
-        updatedItem = ItemMapper.toObject(updatedItemDto, user, null);
-        updatedItem = itemRepository.save(updatedItem);
+        Item item = ItemMapper.toObject(updatedItemDto, user, null);
+        item.setVersion(current.getVersion());
+        Item updatedItem = itemRepository.save(item);
+        reindex(previousItem, updatedItem);
         return ItemMapper.toDto(updatedItem);
     }
 
     public ItemDto getByIdWithBookings(Long userId, Long itemId) {
-        Item item = itemRepository.findById(itemId)
+        return itemRepository.findDetailsById(itemId, userId, LocalDateTime.now())
                 .orElseThrow(
                         () -> new ItemNotFoundException(String.format("Предмет с id %d не найден", itemId))
                 );
-        List<CommentDto> commentDtos = commentRepository.findByItemIdWithAuthor(itemId);
-        ItemDto itemDto = ItemMapper.toDto(item);
-        itemDto.getComments().addAll(commentDtos);
-        if (Objects.equals(item.getOwner().getId(), userId)) {
-            fillBookings(itemDto);
-        }
-        return itemDto;
     }
 
     public List<ItemDto> getAllByUserId(Long userId) {
@@ -112,70 +175,161 @@ public class ItemServiceImpl implements ItemService {
         return itemDtos;
     }
 
-    public List<ItemDto> searchByName(String text) {
-        List<Item> items = itemRepository.findAllByDescriptionContainingIgnoreCaseAndIsAvailableIsTrue(text);
-        return ItemMapper.toDtos(items);
-    }
-
-    private void fillBookings(ItemDto itemDto) {
-        bookingRepository.findFirstByItem_IdAndItem_Owner_IdAndEndDateLessThanOrderByEndDateDesc(
-                itemDto.getId(),
-                itemDto.getOwner(),
-                LocalDateTime.now()
-        ).ifPresent(booking -> {
-            ItemBookingDto lastItemBooking = ItemBookingDto.builder()
-                    .id(booking.getId())
-                    .bookerId(booking.getBooker().getId())
-                    .build();
-            itemDto.setLastBooking(lastItemBooking);
-        });
-        bookingRepository.findFirstByItem_IdAndItem_Owner_IdAndStartDateGreaterThanOrderByStartDateAsc(
-                itemDto.getId(),
-                itemDto.getOwner(),
-                LocalDateTime.now()
-        ).ifPresent(booking -> {
-            ItemBookingDto nextItemBooking = ItemBookingDto.builder()
-                    .id(booking.getId())
-                    .bookerId(booking.getBooker().getId())
-                    .build();
-            itemDto.setNextBooking(nextItemBooking);
-        });
+    public List<ItemDto> getPageByUserId(Long userId, Long afterId, int size) {
+        List<ItemDto> itemDtos = ItemMapper.toDtos(itemRepository.findPageByOwnerId(userId, afterId, PageRequest.of(0, size)));
+        fillBookings(itemDtos);
+        return itemDtos;
+    }
+
+    /**
+     * Выгрузка всех вещей владельца без сборки списка в памяти: вещи читаются курсором,
+     * бронирования подтягиваются пачками по EXPORT_CHUNK, после каждой пачки контекст персистентности очищается.
+     * Устаревшие сводки бронирований считаются без блокировки вещей и не сохраняются.
+     */
+    @Transactional
+    public void exportAllByUserId(Long userId, Consumer<ItemDto> consumer) {
+        try (Stream<Item> items = itemRepository.streamAllByOwnerId(userId)) {
+            List<ItemDto> chunk = new ArrayList<>(EXPORT_CHUNK);
+            Iterator<Item> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(ItemMapper.toDto(iterator.next()));
+                if (chunk.size() == EXPORT_CHUNK || !iterator.hasNext()) {
+                    // без блокировок: транзакция выгрузки живёт, пока клиент читает поток
+                    fillBookings(chunk, itemBookingSummaryService.peekByItemIds(ids(chunk)));
+                    chunk.forEach(consumer);
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    public List<ItemDto> searchByName(String text, ItemSearchMode mode, int from, int size) {
+        long offset = (long) (from / size) * size;
+        return toDtosInOrder(searchIds(text, mode, offset, size));
+    }
+
+    /**
+     * Как searchByName, но только вещи, свободные в окне [start, end]. Кандидаты берутся из индекса
+     * пачками по FREE_CANDIDATE_BATCH в порядке выдачи, занятые отсеиваются одним запросом на пачку,
+     * пока не наберётся страница или не кончится выдача.
+     */
+    public List<ItemDto> searchFreeByName(String text, ItemSearchMode mode, LocalDateTime start, LocalDateTime end, int from, int size) {
+        long offset = (long) (from / size) * size;
+        List<Long> ids = new ArrayList<>();
+        long skipped = 0;
+        List<Long> candidates;
+        long candidateOffset = 0;
+        do {
+            // пачки кандидатов идут мимо кэша выдачи: по 1000 id они вытеснили бы из него страницы обычного поиска
+            candidates = searchIndexes(text, mode, candidateOffset, FREE_CANDIDATE_BATCH);
+            candidateOffset += FREE_CANDIDATE_BATCH;
+            if (candidates.isEmpty()) {
+                break;
+            }
+            LongSet free = new LongOpenHashSet(itemRepository.findFreeIds(candidates, start, end));
+            for (Long id : candidates) {
+                if (!free.contains(id.longValue())) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    ids.add(id);
+                    if (ids.size() == size) {
+                        return toDtosInOrder(ids);
+                    }
+                }
+            }
+        } while (candidates.size() == FREE_CANDIDATE_BATCH);
+        return toDtosInOrder(ids);
+    }
+
+    private List<Long> searchIds(String text, ItemSearchMode mode, long offset, int size) {
+        return itemSearchCache.get(text, mode, offset, size, () -> searchIndexes(text, mode, offset, size));
+    }
+
+    private List<Long> searchIndexes(String text, ItemSearchMode mode, long offset, int size) {
+        return mode == ItemSearchMode.SUBSTRING
+                ? itemSubstringIndex.search(text, offset, size)
+                : itemSearchIndex.search(text, mode, offset, size);
+    }
+
+    private List<ItemDto> toDtosInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ItemSnapshot> items = itemCache.getAll(ids);
+        // порядок выдачи задаёт индекс, вещи, удалённые из базы после поиска, пропускаем
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .map(ItemMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public List<ItemSuggestionDto> suggest(String prefix, int limit) {
+        return itemSuggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Индексы обновляются раньше кэша поиска, чтобы после инвалидации кэш заполнялся уже новой выдачей
+     */
+    private void reindex(Item previous, Item current) {
+        itemCache.put(current);
+        itemSearchIndex.put(current);
+        itemSubstringIndex.put(current);
+        itemSuggestIndex.put(current);
+        itemSearchCache.invalidate(previous, current);
     }
 
     private void fillBookings(List<ItemDto> itemDtos) {
-        List<Long> itemIds = itemDtos.stream()
-                .mapToLong(ItemDto::getId)
-                .boxed()
+        fillBookings(itemDtos, itemBookingSummaryService.getByItemIds(ids(itemDtos)));
+    }
+
+    private static List<Long> ids(List<ItemDto> itemDtos) {
+        return itemDtos.stream()
+                .map(ItemDto::getId)
                 .collect(Collectors.toList());
-        bookingRepository.findLastItemBookings(itemIds, LocalDateTime.now())
-                .forEach(booking -> itemDtos.stream().filter(i -> Objects.equals(i.getId(), booking.getItem().getId()))
-                        .forEach(i -> i.setLastBooking(ItemBookingDto.builder().id(booking.getId())
-                                .bookerId(booking.getBooker().getId())
-                                .build())
-                        )
-                );
-        bookingRepository.findNextItemBookings(itemIds, LocalDateTime.now())
-                .forEach(booking -> itemDtos.stream().filter(i -> Objects.equals(i.getId(), booking.getItem().getId()))
-                        .forEach(i -> i.setNextBooking(ItemBookingDto.builder().id(booking.getId())
-                                .bookerId(booking.getBooker().getId())
-                                .build())
-                        )
-                );
+    }
+
+    /**
+     * Один проход по вещам с поиском сводки по примитивному id, без упаковки ключей в Long.
+     */
+    static void fillBookings(List<ItemDto> itemDtos, Long2ObjectMap<ItemBookingSummary> summaries) {
+        for (ItemDto itemDto : itemDtos) {
+            ItemBookingSummary summary = summaries.get(itemDto.getId().longValue());
+            if (summary == null) {
+                continue;
+            }
+            if (summary.getLastBookingId() != null) {
+                itemDto.setLastBooking(ItemBookingDto.builder()
+                        .id(summary.getLastBookingId())
+                        .bookerId(summary.getLastBookerId())
+                        .build());
+            }
+            if (summary.getNextBookingId() != null) {
+                itemDto.setNextBooking(ItemBookingDto.builder()
+                        .id(summary.getNextBookingId())
+                        .bookerId(summary.getNextBookerId())
+                        .build());
+            }
+        }
     }
 
     public CommentDto createComment(Long userId, Long itemId, String text) {
         User author = userRepository.findById(userId).orElseThrow(
                 () -> new UserNotFoundException(String.format("Юзер с id %d не найден", userId))
         );
-        Item item = itemRepository.findById(itemId).orElseThrow(
-                () -> new ItemNotFoundException(String.format("Предмет с id %d не найден", itemId))
-        );
-        if (bookingRepository.findFirstByItem_IdAndBooker_IdAndEndDateLessThan(item.getId(), author.getId(), LocalDateTime.now()).isEmpty()) {
+        if (itemCache.get(itemId).isEmpty()) {
+            throw new ItemNotFoundException(String.format("Предмет с id %d не найден", itemId));
+        }
+        if (!bookingRepository.existsPastBooking(itemId, author.getId(), LocalDateTime.now())) {
             throw new CommentImpossibleException("Юзер не букал предмет");
         }
         Comment comment = new Comment();
         comment.setAuthor(author);
-        comment.setItem(item);
+        comment.setItem(itemRepository.getReferenceById(itemId));
         comment.setText(text);
         Comment savedComment = commentRepository.save(comment);
         return CommentMapper.toDto(savedComment, author);
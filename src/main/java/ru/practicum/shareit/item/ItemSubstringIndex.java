@@ -0,0 +1,172 @@
+package ru.practicum.shareit.item;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Триграммный инвертированный индекс описаний вещей в памяти для поиска подстроки без обращения к базе.
+ * Каждая триграмма (три символа, упакованные в long) ссылается на сжатый битмап id вещей, в описании которых она есть.
+ * Кандидаты получаются пересечением битмапов всех триграмм запроса и битмапа доступных вещей,
+ * после чего каждый кандидат сверяется с описанием, так что выдача совпадает с
+ * description ILIKE '%text%' and is_available = true.
+ */
+@Slf4j
+@Component
+public class ItemSubstringIndex {
+
+    private static final int GRAM = 3;
+    private static final int LOAD_PAGE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Long2ObjectMap<Roaring64Bitmap> postings = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<String> descriptions = new Long2ObjectOpenHashMap<>();
+    private final Roaring64Bitmap available = new Roaring64Bitmap();
+
+    @Autowired
+    public ItemSubstringIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    /**
+     * Пока идёт загрузка, записи вещей ждут, поэтому вещь, изменённая во время загрузки,
+     * попадёт в индекс в последней версии.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            long afterId = 0;
+            List<Item> items;
+            do {
+                items = itemRepository.findPageAfter(afterId, PageRequest.of(0, LOAD_PAGE));
+                for (Item item : items) {
+                    write(item);
+                    afterId = item.getId();
+                }
+            } while (items.size() == LOAD_PAGE);
+            postings.values().forEach(Roaring64Bitmap::runOptimize);
+            log.info("Триграммный индекс вещей построен, вещей: {}, триграмм: {}", descriptions.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            write(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Id доступных вещей, в описании которых есть text без учёта регистра, по возрастанию id
+     */
+    public List<Long> search(String text, long from, int size) {
+        String query = normalize(text);
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap candidates = candidates(query);
+            List<Long> ids = new ArrayList<>();
+            long skipped = 0;
+            LongIterator iterator = candidates.getLongIterator();
+            while (iterator.hasNext() && ids.size() < size) {
+                long id = iterator.next();
+                if (!descriptions.get(id).contains(query)) {
+                    continue;
+                }
+                if (skipped < from) {
+                    skipped++;
+                } else {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Roaring64Bitmap candidates(String query) {
+        long[] grams = grams(query);
+        if (grams.length == 0) {
+            // запрос короче триграммы: проверяем все доступные вещи
+            return available;
+        }
+        List<Roaring64Bitmap> bitmaps = new ArrayList<>(grams.length);
+        for (long gram : grams) {
+            Roaring64Bitmap bitmap = postings.get(gram);
+            if (bitmap == null) {
+                return new Roaring64Bitmap();
+            }
+            bitmaps.add(bitmap);
+        }
+        bitmaps.sort(Comparator.comparingLong(Roaring64Bitmap::getLongCardinality));
+        Roaring64Bitmap result = bitmaps.get(0).clone();
+        for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+            result.and(bitmaps.get(i));
+        }
+        result.and(available);
+        return result;
+    }
+
+    private void write(Item item) {
+        long id = item.getId();
+        String description = normalize(item.getDescription() == null ? "" : item.getDescription());
+        String previous = descriptions.put(id, description);
+        if (!description.equals(previous)) {
+            if (previous != null) {
+                for (long gram : grams(previous)) {
+                    Roaring64Bitmap bitmap = postings.get(gram);
+                    bitmap.removeLong(id);
+                    if (bitmap.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            for (long gram : grams(description)) {
+                postings.computeIfAbsent(gram, g -> new Roaring64Bitmap()).addLong(id);
+            }
+        }
+        if (Boolean.TRUE.equals(item.getIsAvailable())) {
+            available.addLong(id);
+        } else {
+            available.removeLong(id);
+        }
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Триграммы строки, каждая упакована в long по 16 бит на символ
+     */
+    static long[] grams(String text) {
+        LongSet grams = new LongOpenHashSet(Math.max(text.length() - GRAM + 1, 0));
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams.toLongArray();
+    }
+}
@@ -0,0 +1,232 @@
+package ru.practicum.shareit.item;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.search.suggest.InputIterator;
+import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.search.suggest.fst.WFSTCompletionLookup;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Подсказки по префиксу для строки поиска вещей. Подсказки — названия доступных вещей и слова
+ * из их названий и описаний, вес подсказки — число вещей, в которых она встречается
+ * (в названии вдвое весомее, чем в описании).
+ * Поиск идёт по взвешенному FST (WFSTCompletionLookup), который отдаёт top-k по весу за время,
+ * зависящее от длины префикса, а не от числа вещей.
+ * Веса поддерживаются инкрементально при каждой записи вещи, а FST неизменяем, поэтому
+ * пересобирается в фоне не чаще раза в REBUILD_DELAY_MS и подменяется целиком.
+ */
+@Slf4j
+@Component
+public class ItemSuggestIndex {
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_WORD_LENGTH = 2;
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int LOAD_PAGE = 1000;
+    private static final long REBUILD_DELAY_MS = 200;
+
+    private final ItemRepository itemRepository;
+    private final Object2LongMap<String> weights = new Object2LongOpenHashMap<>();
+    private final Long2ObjectMap<Object2IntMap<String>> contributions = new Long2ObjectOpenHashMap<>();
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "item-suggest-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile Lookup lookup;
+
+    @Autowired
+    public ItemSuggestIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int count;
+        synchronized (this) {
+            long afterId = 0;
+            List<Item> items;
+            do {
+                items = itemRepository.findPageAfter(afterId, PageRequest.of(0, LOAD_PAGE));
+                for (Item item : items) {
+                    write(item);
+                    afterId = item.getId();
+                }
+            } while (items.size() == LOAD_PAGE);
+            count = weights.size();
+        }
+        rebuildLookup();
+        log.info("Индекс подсказок построен, подсказок: {}", count);
+    }
+
+    public void put(Item item) {
+        synchronized (this) {
+            write(item);
+        }
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.schedule(this::rebuildLookup, REBUILD_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * До limit подсказок, начинающихся с prefix без учёта регистра, по убыванию веса
+     */
+    public List<ItemSuggestionDto> suggest(String prefix, int limit) {
+        Lookup current = lookup;
+        if (current == null) {
+            return List.of();
+        }
+        try {
+            return current.lookup(prefix.toLowerCase(Locale.ROOT), false, limit).stream()
+                    .map(result -> new ItemSuggestionDto(result.key.toString(), result.value))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+
+    void rebuildLookup() {
+        rebuildScheduled.set(false);
+        List<String> keys;
+        long[] values;
+        synchronized (this) {
+            keys = new ArrayList<>(weights.keySet());
+            values = keys.stream().mapToLong(weights::getLong).toArray();
+        }
+        WFSTCompletionLookup built = new WFSTCompletionLookup(new ByteBuffersDirectory(), "suggest", true);
+        try {
+            built.build(new WeightedKeys(keys.iterator(), values));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lookup = built;
+    }
+
+    private void write(Item item) {
+        Object2IntMap<String> previous = contributions.remove(item.getId().longValue());
+        if (previous != null) {
+            previous.forEach((key, weight) -> {
+                if (weights.mergeLong(key, -weight, Long::sum) <= 0) {
+                    weights.removeLong(key);
+                }
+            });
+        }
+        if (!Boolean.TRUE.equals(item.getIsAvailable())) {
+            return;
+        }
+        Object2IntMap<String> current = suggestions(item);
+        current.forEach((key, weight) -> weights.mergeLong(key, weight, Long::sum));
+        contributions.put(item.getId().longValue(), current);
+    }
+
+    private static Object2IntMap<String> suggestions(Item item) {
+        Object2IntMap<String> suggestions = new Object2IntOpenHashMap<>();
+        if (item.getDescription() != null) {
+            addWords(suggestions, item.getDescription(), DESCRIPTION_WEIGHT);
+        }
+        addWords(suggestions, item.getName(), NAME_WEIGHT);
+        String name = String.join(" ", words(item.getName()));
+        if (!name.isEmpty()) {
+            suggestions.put(name, NAME_WEIGHT);
+        }
+        return suggestions;
+    }
+
+    private static void addWords(Object2IntMap<String> suggestions, String text, int weight) {
+        for (String word : words(text)) {
+            if (word.length() >= MIN_WORD_LENGTH) {
+                suggestions.mergeInt(word, weight, Math::max);
+            }
+        }
+    }
+
+    private static List<String> words(String text) {
+        return WORD_SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Ключи с весами для сборки FST
+     */
+    private static class WeightedKeys implements InputIterator {
+        private final Iterator<String> keys;
+        private final long[] values;
+        private int position = -1;
+
+        WeightedKeys(Iterator<String> keys, long[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public BytesRef next() {
+            if (!keys.hasNext()) {
+                return null;
+            }
+            position++;
+            return new BytesRef(keys.next());
+        }
+
+        @Override
+        public long weight() {
+            return values[position];
+        }
+
+        @Override
+        public BytesRef payload() {
+            return null;
+        }
+
+        @Override
+        public boolean hasPayloads() {
+            return false;
+        }
+
+        @Override
+        public Set<BytesRef> contexts() {
+            return null;
+        }
+
+        @Override
+        public boolean hasContexts() {
+            return false;
+        }
+    }
+}
@@ -5,32 +5,24 @@ import org.springframework.stereotype.Component;
 import ru.practicum.shareit.error.exeptions.ItemNotFoundException;
 import ru.practicum.shareit.error.exeptions.ItemOwnershipException;
 import ru.practicum.shareit.error.exeptions.ItemValidationException;
-import ru.practicum.shareit.error.exeptions.UserNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.item.model.ItemSnapshot;
 
 @Component
 public class ItemValidation {
 
-    private final ItemRepository itemRepository;
-
-    private final UserRepository userRepository;
+    private final ItemCache itemCache;
 
     @Autowired
-    public ItemValidation(
-            ItemRepository itemRepository,
-            UserRepository userRepository
-    ) {
-        this.itemRepository = itemRepository;
-        this.userRepository = userRepository;
+    public ItemValidation(ItemCache itemCache) {
+        this.itemCache = itemCache;
     }
 
 
+    /**
+     * Владелец проверяется до вызова, при получении ссылки на него
+     */
     public void validateCreation(ItemDto itemDto) {
-        userRepository.findById(itemDto.getOwner()).orElseThrow(
-                () -> new UserNotFoundException(String.format("Юзер с id %d не найден", itemDto.getOwner()))
-        );
         if (itemDto.getAvailable() == null) {
             throw new ItemValidationException("Необходима доступность");
         }
@@ -42,15 +34,15 @@ public class ItemValidation {
         }
     }
 
-    public Item validateUpdateAndGet(ItemDto itemDto) {
+    public ItemSnapshot validateUpdateAndGet(ItemDto itemDto) {
         if (itemDto.getOwner() == null) {
             throw new ItemValidationException("Юзер не авторизирован");
         }
-        Item item = itemRepository.findById(itemDto.getId())
+        ItemSnapshot item = itemCache.get(itemDto.getId())
                 .orElseThrow(
                         () -> new ItemNotFoundException("Товара не существует")
                 );
-        if (!itemDto.getOwner().equals(item.getOwner().getId())) {
+        if (!itemDto.getOwner().equals(item.getOwnerId())) {
             throw new ItemOwnershipException("Вы не хозяин предмета");
         }
         return item;
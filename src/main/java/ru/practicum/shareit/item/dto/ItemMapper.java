@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.dto;
 
 import lombok.NonNull;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSnapshot;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -22,6 +23,18 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemDto toDto(@NonNull ItemSnapshot item) {
+        return ItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .owner(item.getOwnerId())
+                .requestId(item.getRequestId())
+                .comments(new ArrayList<>())
+                .build();
+    }
+
     public static List<ItemDto> toDtos(@NonNull List<Item> items) {
         List<ItemDto> dtos = new ArrayList<>();
         items.forEach(item -> dtos.add(toDto(item)));
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Подсказка для строки поиска: название вещи или слово из названий и описаний
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSuggestionDto {
+
+    private String text;
+
+    /**
+     * Популярность подсказки: сколько доступных вещей её содержат, совпадение в названии считается дважды
+     */
+    private long weight;
+}
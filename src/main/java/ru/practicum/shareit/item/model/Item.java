@@ -3,6 +3,8 @@ package ru.practicum.shareit.item.model;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -13,6 +15,8 @@ import javax.persistence.*;
  */
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "items")
 @Getter
 @Setter
 @ToString
@@ -53,6 +57,13 @@ public class Item {
     @JoinColumn(name = "request_id")
     private ItemRequest request;
 
+    /**
+     * Версия строки для оптимистической блокировки, растёт при каждом изменении вещи
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
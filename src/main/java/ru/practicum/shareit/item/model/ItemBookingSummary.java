@@ -0,0 +1,71 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Последнее и следующее бронирования вещи, посчитанные заранее, чтобы список вещей владельца
+ * не агрегировал всю таблицу бронирований.
+ */
+@Entity
+@Table(name = "item_booking_summary")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class ItemBookingSummary {
+
+    @Id
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+
+    /**
+     * Момент, когда одно из бронирований начнётся или закончится и сводку придётся пересчитать.
+     * Null, если до следующего бронирования сводка не изменится.
+     */
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil;
+
+    public ItemBookingSummary(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public boolean isValidAt(LocalDateTime now) {
+        return validUntil == null || validUntil.isAfter(now);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ItemBookingSummary)) return false;
+
+        ItemBookingSummary summary = (ItemBookingSummary) o;
+
+        return getItemId() != null ? getItemId().equals(summary.getItemId()) : summary.getItemId() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return getItemId() != null ? getItemId().hashCode() : 0;
+    }
+}
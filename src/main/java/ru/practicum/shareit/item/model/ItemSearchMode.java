@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.model;
+
+/**
+ * Режим поиска вещей
+ */
+public enum ItemSearchMode {
+    /**
+     * Подстрока в описании без учёта регистра
+     */
+    SUBSTRING,
+    /**
+     * Полнотекстовый поиск по названию и описанию с ранжированием по релевантности
+     */
+    FULLTEXT,
+    /**
+     * Полнотекстовый поиск, терпимый к опечаткам: до двух правок на слово
+     */
+    FUZZY
+}
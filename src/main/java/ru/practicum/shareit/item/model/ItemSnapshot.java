@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.Value;
+
+/**
+ * Неизменяемый снимок вещи для кэша: только поля строки items, без ленивых связей.
+ * version — значение оптимистической блокировки на момент чтения.
+ */
+@Value
+public class ItemSnapshot {
+    Long id;
+    String name;
+    String description;
+    Boolean available;
+    Long ownerId;
+    Long requestId;
+    Long version;
+
+    public static ItemSnapshot of(Item item) {
+        return new ItemSnapshot(
+                item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getIsAvailable(),
+                item.getOwner().getId(),
+                item.getRequest() != null ? item.getRequest().getId() : null,
+                item.getVersion()
+        );
+    }
+}
@@ -10,6 +10,7 @@ import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserExistenceCache;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
@@ -22,13 +23,17 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     private final UserRepository userRepository;
 
+    private final UserExistenceCache userExistenceCache;
+
     @Autowired
     public ItemRequestServiceImpl(
             UserRepository userRepository,
-            ItemRequestRepository itemRequestRepository
+            ItemRequestRepository itemRequestRepository,
+            UserExistenceCache userExistenceCache
     ) {
         this.userRepository = userRepository;
         this.itemRequestRepository = itemRequestRepository;
+        this.userExistenceCache = userExistenceCache;
     }
 
     @Override
@@ -43,9 +48,9 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public List<ItemRequestDto> getAllByOwner(Long userId) {
-        userRepository.findById(userId).orElseThrow(
-                () -> new UserNotFoundException("Юзер не найден")
-        );
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException("Юзер не найден");
+        }
         List<ItemRequest> requests = itemRequestRepository.findByRequester_Id(userId);
         return ItemRequestMapper.toDtos(requests);
     }
@@ -57,9 +62,9 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public ItemRequestDto getOneById(Long userId, Long requestId) {
-        userRepository.findById(userId).orElseThrow(
-                () -> new UserNotFoundException(String.format("Юзер с id %d не найден", userId))
-        );
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(String.format("Юзер с id %d не найден", userId));
+        }
         ItemRequest itemRequest = itemRequestRepository.findById(requestId).orElseThrow(
                 () -> new ItemRequestNotFoundException(String.format("Запрос с id %d не найден", requestId))
         );
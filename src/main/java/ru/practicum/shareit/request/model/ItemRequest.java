@@ -3,6 +3,8 @@ package ru.practicum.shareit.request.model;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -19,6 +21,8 @@ import java.util.List;
  */
 @Entity
 @Table(name = "requests")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "requests")
 @Getter
 @Setter
 @ToString
@@ -46,6 +50,10 @@ public class ItemRequest {
     @ToString.Exclude
     private User requester;
 
+    /**
+     * Вещи, добавленные в ответ на запрос. Коллекция во втором уровне не кэшируется:
+     * вещь привязывается к запросу со своей стороны, и закэшированный список не узнал бы о ней.
+     */
     @OneToMany(mappedBy = "request", cascade = CascadeType.ALL, orphanRemoval = true)
     @ToString.Exclude
     private List<Item> items = new ArrayList<>();
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.user;
+
+/**
+ * Счётный фильтр Блума над 64-битными ключами: вместо битов 4-битные счётчики, по 16 в одном long,
+ * поэтому ключи можно не только добавлять, но и удалять. Отрицательный ответ mightContain точен,
+ * положительный ошибается с вероятностью, заданной при создании, пока ключей не больше capacity.
+ * Счётчик, дошедший до 15, больше не уменьшается: так переполнение даёт лишние положительные ответы,
+ * но не ложные отрицательные. Удалять можно только добавленные ранее ключи.
+ * Не потокобезопасен: синхронизация на стороне владельца.
+ */
+class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+
+    private final long[] words;
+    private final int counters;
+    private final int hashes;
+    private final int capacity;
+
+    CountingBloomFilter(int capacity, double falsePositiveRate) {
+        this.capacity = Math.max(capacity, 1);
+        double optimal = -this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.counters = (int) Math.min(Math.max(Math.ceil(optimal), COUNTERS_PER_WORD), Integer.MAX_VALUE / 2);
+        this.hashes = Math.max(1, (int) Math.round((double) counters / this.capacity * Math.log(2)));
+        this.words = new long[(counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD];
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void add(long key) {
+        long hash = mix(key);
+        for (int i = 0; i < hashes; i++) {
+            int counter = index(hash, i);
+            long count = count(counter);
+            if (count < MAX_COUNT) {
+                set(counter, count + 1);
+            }
+        }
+    }
+
+    void remove(long key) {
+        if (!mightContain(key)) {
+            return;
+        }
+        long hash = mix(key);
+        for (int i = 0; i < hashes; i++) {
+            int counter = index(hash, i);
+            long count = count(counter);
+            if (count < MAX_COUNT) {
+                set(counter, count - 1);
+            }
+        }
+    }
+
+    boolean mightContain(long key) {
+        long hash = mix(key);
+        for (int i = 0; i < hashes; i++) {
+            if (count(index(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-битный ключ строки: FNV-1a по символам. Совпадение ключей у разных строк
+     * для фильтра равносильно ещё одному ложному положительному ответу.
+     */
+    static long key(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Двойное хэширование (Kirsch–Mitzenmacher): i-й счётчик — h1 + i * h2 из двух половин перемешанного ключа
+     */
+    private int index(long hash, int i) {
+        int combined = (int) hash + i * (int) (hash >>> 32);
+        return Math.floorMod(combined, counters);
+    }
+
+    private long count(int counter) {
+        return (words[counter / COUNTERS_PER_WORD] >>> shift(counter)) & MAX_COUNT;
+    }
+
+    private void set(int counter, long count) {
+        int word = counter / COUNTERS_PER_WORD;
+        int shift = shift(counter);
+        words[word] = (words[word] & ~(MAX_COUNT << shift)) | (count << shift);
+    }
+
+    private static int shift(int counter) {
+        return (counter % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    /**
+     * Финальное перемешивание MurmurHash3: соседние id дают независимые наборы счётчиков
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.user;
+
+/**
+ * Проверка почты за один проход по строке, без регулярного выражения и без выделения памяти.
+ * Принимает ровно те же строки, что и REGEX:
+ * <ul>
+ *     <li>локальная часть до первой @ — от 1 до 64 символов, метки из [A-Za-z0-9_-] через точку, без пустых меток;</li>
+ *     <li>первый символ после @ — любой символ Unicode, кроме дефиса (так в исходном выражении: [^-]);</li>
+ *     <li>дальше метки из [A-Za-z0-9-] через точку, не меньше двух, без пустых,
+ *     последняя — только латинские буквы, не короче двух.</li>
+ * </ul>
+ */
+public final class EmailValidator {
+
+    /**
+     * Прежнее выражение, по которому проверялась почта: эталон поведения для тестов
+     */
+    static final String REGEX = "^(?=.{1,64}@)[A-Za-z0-9_-]+(\\.[A-Za-z0-9_-]+)*@[^-][A-Za-z0-9-]+(\\.[A-Za-z0-9-]+)*(\\.[A-Za-z]{2,})$";
+
+    private static final int MAX_LOCAL_LENGTH = 64;
+    private static final int MIN_TOP_LEVEL_LENGTH = 2;
+
+    private EmailValidator() {
+    }
+
+    public static boolean isValid(CharSequence email) {
+        int length = email.length();
+        int i = 0;
+        boolean emptyLabel = true;
+        for (; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                break;
+            }
+            if (i == MAX_LOCAL_LENGTH) {
+                return false;
+            }
+            if (c == '.') {
+                if (emptyLabel) {
+                    return false;
+                }
+                emptyLabel = true;
+            } else if (isLetterOrDigit(c) || c == '_' || c == '-') {
+                emptyLabel = false;
+            } else {
+                return false;
+            }
+        }
+        // i — длина локальной части; пустая метка здесь значит пустую часть или точку перед @
+        if (i == length || emptyLabel) {
+            return false;
+        }
+        i++;
+        if (i == length || email.charAt(i) == '-') {
+            return false;
+        }
+        // [^-] съедает целый символ Unicode, а не половину суррогатной пары
+        i += Character.charCount(Character.codePointAt(email, i));
+        int labels = 0;
+        int labelLength = 0;
+        boolean lettersOnly = true;
+        for (; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (labelLength == 0) {
+                    return false;
+                }
+                labels++;
+                labelLength = 0;
+                lettersOnly = true;
+            } else if (isLetterOrDigit(c) || c == '-') {
+                labelLength++;
+                lettersOnly &= isLetter(c);
+            } else {
+                return false;
+            }
+        }
+        return labels > 0 && labelLength >= MIN_TOP_LEVEL_LENGTH && lettersOnly;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Счётный фильтр Блума над ключами из базы, который умеет перестраивать себя: ключи читаются постранично
+ * по возрастанию, начиная после first. Фильтр строится с запасом вдвое и перестраивается, когда ключей
+ * становится больше его ёмкости. Добавление и удаление ключей ждут окончания построения,
+ * а до первого построения любой ключ считается возможно присутствующим.
+ *
+ * @param <K> ключ, по которому идёт постраничное чтение
+ */
+@Slf4j
+class RebuildableBloomFilter<K> {
+
+    private static final int LOAD_PAGE = 1000;
+    private static final int MIN_CAPACITY = 1024;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * Страница ключей, больших after, по возрастанию
+     */
+    @FunctionalInterface
+    interface PageLoader<K> {
+        List<K> load(K after, Pageable page);
+    }
+
+    private final String name;
+    private final LongSupplier total;
+    private final K first;
+    private final PageLoader<K> pageLoader;
+    private final ToLongFunction<K> hash;
+    // фильтр и число ключей в нём меняются только под монитором этого объекта
+    private CountingBloomFilter filter;
+    private int count;
+
+    RebuildableBloomFilter(String name, LongSupplier total, K first, PageLoader<K> pageLoader, ToLongFunction<K> hash) {
+        this.name = name;
+        this.total = total;
+        this.first = first;
+        this.pageLoader = pageLoader;
+        this.hash = hash;
+    }
+
+    synchronized void rebuild() {
+        CountingBloomFilter rebuilt = new CountingBloomFilter(
+                (int) Math.min(Math.max(2 * total.getAsLong(), MIN_CAPACITY), Integer.MAX_VALUE / 2),
+                FALSE_POSITIVE_RATE);
+        int loaded = 0;
+        K after = first;
+        List<K> keys;
+        do {
+            keys = pageLoader.load(after, PageRequest.of(0, LOAD_PAGE));
+            for (K key : keys) {
+                rebuilt.add(hash.applyAsLong(key));
+                after = key;
+            }
+            loaded += keys.size();
+        } while (keys.size() == LOAD_PAGE);
+        filter = rebuilt;
+        count = loaded;
+        log.info("Фильтр {} построен, ключей: {}", name, loaded);
+    }
+
+    synchronized boolean mightContain(K key) {
+        return filter == null || filter.mightContain(hash.applyAsLong(key));
+    }
+
+    synchronized void add(K key) {
+        if (filter == null) {
+            return;
+        }
+        filter.add(hash.applyAsLong(key));
+        if (++count > filter.capacity()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Удалять можно только ключи, которые были в базе при построении или добавлены после него:
+     * удаление чужого ключа уменьшает счётчики других ключей и даёт ложные отрицательные ответы.
+     * Ключ, которого фильтр точно не знает, пропускается.
+     */
+    synchronized void remove(K key) {
+        if (filter == null) {
+            return;
+        }
+        long hashed = hash.applyAsLong(key);
+        if (!filter.mightContain(hashed)) {
+            return;
+        }
+        filter.remove(hashed);
+        count--;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.user;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Занятые почты пользователей в фильтре Блума. Если фильтр почту не знает, она свободна
+ * и проверять её в базе не нужно; положительный ответ надо подтвердить поиском по почте.
+ * Почты, записанные другими экземплярами или прямо в базу, в фильтр не попадают, поэтому он строится,
+ * как и фильтр id в {@link UserExistenceCache}, только для единственного писателя пользователей
+ * (shareit.user-filter.single-writer). Без него любая почта считается возможно занятой.
+ */
+@Component
+public class UserEmailFilter {
+
+    private final RebuildableBloomFilter<String> filter;
+
+    @Autowired
+    public UserEmailFilter(
+            UserRepository userRepository,
+            @Value("${shareit.user-filter.single-writer:false}") boolean singleWriter
+    ) {
+        this.filter = singleWriter
+                ? new RebuildableBloomFilter<>("почт пользователей", userRepository::count, "",
+                        userRepository::findEmailPageAfter, CountingBloomFilter::key)
+                : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (filter != null) {
+            filter.rebuild();
+        }
+    }
+
+    public boolean mightBeTaken(String email) {
+        return filter == null || filter.mightContain(email);
+    }
+
+    /**
+     * Вызывается после сохранения пользователя с новой почтой
+     */
+    public void add(String email) {
+        if (filter != null) {
+            filter.add(email);
+        }
+    }
+
+    /**
+     * Вызывается после того, как почта освободилась: пользователь удалён или сменил почту.
+     * Почта должна быть прочитана из базы: при единственном писателе только такие почты точно есть в фильтре.
+     */
+    public void remove(String email) {
+        if (filter != null) {
+            filter.remove(email);
+        }
+    }
+}
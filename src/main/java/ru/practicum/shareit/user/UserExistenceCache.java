@@ -0,0 +1,86 @@
+package ru.practicum.shareit.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Проверка существования пользователя без загрузки строки. Подтверждённые id запоминаются в кэше,
+ * так что в базу (existsById) уходит только первая проверка каждого id.
+ * Пользователей могут создавать другие экземпляры сервиса и прямые записи в базу, поэтому отсутствие
+ * id в кэше ничего не доказывает и всегда проверяется в базе.
+ * Только если экземпляр объявлен единственным, кто пишет пользователей (shareit.user-filter.single-writer),
+ * строится фильтр Блума по id, который сразу отвечает «нет» для неизвестных id и поддерживается
+ * при создании и удалении пользователей.
+ */
+@Component
+public class UserExistenceCache {
+
+    static final String NAME = "userExists";
+    private static final long MAX_KNOWN = 100_000;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Boolean> known;
+    private final RebuildableBloomFilter<Long> filter;
+
+    @Autowired
+    public UserExistenceCache(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${shareit.user-filter.single-writer:false}") boolean singleWriter
+    ) {
+        this.userRepository = userRepository;
+        this.filter = singleWriter
+                ? new RebuildableBloomFilter<>("id пользователей", userRepository::count, 0L,
+                        userRepository::findIdPageAfter, Long::longValue)
+                : null;
+        this.known = Caffeine.newBuilder()
+                .maximumSize(MAX_KNOWN)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, known, NAME);
+    }
+
+    /**
+     * Без единственного писателя фильтр не строится
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (filter != null) {
+            filter.rebuild();
+        }
+    }
+
+    public boolean exists(Long userId) {
+        if (filter != null && !filter.mightContain(userId)) {
+            return false;
+        }
+        return known.get(userId, id -> userRepository.existsById(id) ? Boolean.TRUE : null) != null;
+    }
+
+    /**
+     * Вызывается после сохранения нового пользователя
+     */
+    public void add(Long userId) {
+        if (filter != null) {
+            filter.add(userId);
+        }
+    }
+
+    /**
+     * Вызывается после удаления пользователя
+     */
+    public void remove(Long userId) {
+        if (filter != null) {
+            filter.remove(userId);
+        }
+        // ждёт идущую проверку этого id, поэтому ответ, полученный до удаления, в кэше не останется
+        known.invalidate(userId);
+    }
+}
@@ -1,11 +1,24 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.Optional;
+import java.util.List;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
-    Optional<User> findByEmail(String email);
+    /**
+     * Id пользователей по ключу id: id больше afterId по возрастанию
+     */
+    @Query("select u.id from User u where u.id > :afterId order by u.id")
+    List<Long> findIdPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Почты пользователей по ключу почты: почты больше afterEmail по возрастанию
+     */
+    @Query("select u.email from User u where u.email > :afterEmail order by u.email")
+    List<String> findEmailPageAfter(@Param("afterEmail") String afterEmail, Pageable pageable);
 }
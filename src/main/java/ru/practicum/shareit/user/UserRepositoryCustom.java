@@ -0,0 +1,14 @@
+package ru.practicum.shareit.user;
+
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Пользователь по почте как по натуральному ключу: повторный поиск той же почты
+     * обслуживается кэшем второго уровня без запроса к базе.
+     */
+    Optional<User> findByEmail(String email);
+}
@@ -19,14 +19,20 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserValidation userValidation;
+    private final UserExistenceCache userExistenceCache;
+    private final UserEmailFilter userEmailFilter;
 
     @Autowired
     public UserServiceImpl(
             UserRepository userRepository,
-            UserValidation userValidation
+            UserValidation userValidation,
+            UserExistenceCache userExistenceCache,
+            UserEmailFilter userEmailFilter
     ) {
         this.userRepository = userRepository;
         this.userValidation = userValidation;
+        this.userExistenceCache = userExistenceCache;
+        this.userEmailFilter = userEmailFilter;
     }
 
     public List<UserDto> getAll() {
@@ -37,6 +43,8 @@ public class UserServiceImpl implements UserService {
         userValidation.validateCreation(userDto);
         try {
             User user = userRepository.save(UserMapper.toObject(userDto));
+            userExistenceCache.add(user.getId());
+            userEmailFilter.add(user.getEmail());
             return UserMapper.toDto(user);
         } catch (DataIntegrityViolationException e) {
             throw new UserDuplicateEmailException("Юзер с email %s уже существует");
@@ -47,6 +55,7 @@ public class UserServiceImpl implements UserService {
         userDto.setId(id);
         User updatedUser = userValidation.validateUpdateAndGet(userDto);
         UserDto updatedUserDto = UserMapper.toDto(updatedUser);
+        String previousEmail = updatedUserDto.getEmail();
         if (userDto.getName() != null && !Objects.equals(updatedUserDto.getName(), userDto.getName())) {
             updatedUserDto.setName(userDto.getName());
         }
@@ -54,7 +63,16 @@ public class UserServiceImpl implements UserService {
             updatedUserDto.setEmail(userDto.getEmail());
         }
         updatedUser = UserMapper.toObject(updatedUserDto);
-        updatedUser = userRepository.save(updatedUser);
+        try {
+            updatedUser = userRepository.save(updatedUser);
+        } catch (DataIntegrityViolationException e) {
+            // почту успели занять между проверкой и сохранением
+            throw new UserDuplicateEmailException(String.format("Юзер с email %s уже существует", updatedUserDto.getEmail()));
+        }
+        if (!Objects.equals(previousEmail, updatedUser.getEmail())) {
+            userEmailFilter.add(updatedUser.getEmail());
+            userEmailFilter.remove(previousEmail);
+        }
         return UserMapper.toDto(updatedUser);
     }
 
@@ -66,9 +84,9 @@ public class UserServiceImpl implements UserService {
     }
 
     public void delete(long id) {
-        userRepository.findById(id).orElseThrow(
-                () -> new UserNotFoundException(String.format("Юзер с id %d не найден", id))
-        );
-        userRepository.deleteById(id);
+        User user = getById(id);
+        userRepository.delete(user);
+        userEmailFilter.remove(user.getEmail());
+        userExistenceCache.remove(id);
     }
 }
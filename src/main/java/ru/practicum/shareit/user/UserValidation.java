@@ -12,32 +12,44 @@ import ru.practicum.shareit.user.model.User;
 @Slf4j
 @Component
 public class UserValidation {
-    private static final String REGEX_PATTERN = "^(?=.{1,64}@)[A-Za-z0-9_-]+(\\.[A-Za-z0-9_-]+)*@[^-][A-Za-z0-9-]+(\\.[A-Za-z0-9-]+)*(\\.[A-Za-z]{2,})$";
     private final UserRepository userRepository;
+    private final UserEmailFilter userEmailFilter;
 
     @Autowired
-    public UserValidation(UserRepository userRepository) {
+    public UserValidation(UserRepository userRepository, UserEmailFilter userEmailFilter) {
         this.userRepository = userRepository;
+        this.userEmailFilter = userEmailFilter;
     }
 
     public void validateCreation(UserDto userDto) {
         if (userDto.getEmail() == null) {
             throw new UserValidationException("Необходима почта");
         }
-        if (!userDto.getEmail().matches(REGEX_PATTERN)) {
+        if (!EmailValidator.isValid(userDto.getEmail())) {
             throw new UserValidationException("Почта не валидна");
         }
+        validateEmailIsFree(userDto.getEmail());
     }
 
     public User validateUpdateAndGet(UserDto userDto) {
         if (userDto.getEmail() == null && userDto.getName() == null) {
             throw new UserValidationException("Юзер с пустыми полями");
         }
-        if (userDto.getEmail() != null && userRepository.findByEmail(userDto.getEmail()).isPresent()) {
-            throw new UserDuplicateEmailException(String.format("Юзер с email %s уже существует", userDto.getEmail()));
+        if (userDto.getEmail() != null) {
+            validateEmailIsFree(userDto.getEmail());
         }
         return userRepository.findById(userDto.getId()).orElseThrow(
                 () -> new UserNotFoundException(String.format("Юзер с id %d не найден", userDto.getId()))
         );
     }
+
+    /**
+     * В базу идём, только если фильтр почт считает почту возможно занятой.
+     * Гонку двух одновременных регистраций по-прежнему ловит уникальный индекс.
+     */
+    private void validateEmailIsFree(String email) {
+        if (userEmailFilter.mightBeTaken(email) && userRepository.findByEmail(email).isPresent()) {
+            throw new UserDuplicateEmailException(String.format("Юзер с email %s уже существует", email));
+        }
+    }
 }
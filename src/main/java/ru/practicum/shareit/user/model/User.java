@@ -3,15 +3,22 @@ package ru.practicum.shareit.user.model;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
 
 /**
- * Класс пользователя
+ * Класс пользователя. Кэшируется во втором уровне Hibernate вместе с соответствием почты и id.
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 @Getter
 @Setter
 @ToString
@@ -33,6 +40,7 @@ public class User {
      * Адрес электронной почты (учтите, что два пользователя не могут иметь одинаковый адрес электронной почты).
      */
     @Column(nullable = false, unique = true)
+    @NaturalId(mutable = true)
     @Email
     private String email;
 
@@ -1,3 +1,4 @@
+DROP TABLE IF EXISTS item_booking_summary;
 DROP TABLE IF EXISTS comments;
 DROP TABLE IF EXISTS bookings;
 DROP TABLE IF EXISTS items;
@@ -29,6 +30,7 @@ CREATE TABLE IF NOT EXISTS items
     is_available BOOLEAN,
     owner_id BIGINT CONSTRAINT items_users_id_fk REFERENCES users (id),
     request_id BIGINT CONSTRAINT items_request_id_fk REFERENCES requests (id),
+    version BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT pk_item PRIMARY KEY (id)
 );
 
@@ -53,3 +55,24 @@ CREATE TABLE IF NOT EXISTS comments
     created TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_comment PRIMARY KEY (id)
 );
+
+CREATE TABLE IF NOT EXISTS item_booking_summary
+(
+    item_id BIGINT NOT NULL CONSTRAINT item_booking_summary_items_id_fk REFERENCES items (id),
+    last_booking_id BIGINT,
+    last_booker_id BIGINT,
+    next_booking_id BIGINT,
+    next_booker_id BIGINT,
+    valid_until TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_item_booking_summary PRIMARY KEY (item_id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_items_owner_id ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS ix_items_request_id ON items (request_id);
+CREATE INDEX IF NOT EXISTS ix_requests_requester_id ON requests (requester_id);
+CREATE INDEX IF NOT EXISTS ix_comments_item_id ON comments (item_id);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker_id, start_time);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_status ON bookings (booker_id, status);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_window ON bookings (item_id, start_time, end_time, status);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_end ON bookings (item_id, end_time);
@@ -0,0 +1,143 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Число SQL-запросов на один вызов эндпоинта без кэша второго уровня Hibernate и с ним.
+ * Приложение поднимается дважды на отдельных базах H2, каждый эндпоинт прогревается одним вызовом
+ * и затем вызывается CALLS раз. Запросы считает SqlStatementCollector.
+ * Запуск: main этого класса с тестовым classpath, surefire его не подхватывает.
+ */
+public class EntityCacheQueryCountBenchmark {
+
+    private static final int CALLS = 200;
+    private static final LocalDateTime START = LocalDateTime.now().plusDays(1).withNano(0);
+
+    private final MockMvc mvc;
+    private final ObjectMapper mapper;
+    private long ownerId;
+    private long bookerId;
+    private long itemId;
+    private long requestId;
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    private EntityCacheQueryCountBenchmark(WebApplicationContext context) {
+        this.mvc = MockMvcBuilders.webAppContextSetup(context).build();
+        this.mapper = context.getBean(ObjectMapper.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, double[]> off = run(false);
+        Map<String, double[]> on = run(true);
+        System.out.printf("%-28s %15s %15s%n", "Эндпоинт (select / всего)", "без L2", "с L2");
+        for (String endpoint : off.keySet()) {
+            System.out.printf("%-28s %6.2f / %5.2f %6.2f / %5.2f%n", endpoint,
+                    off.get(endpoint)[0], off.get(endpoint)[1], on.get(endpoint)[0], on.get(endpoint)[1]);
+        }
+    }
+
+    private static Map<String, double[]> run(boolean secondLevelCache) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("test")
+                // аргументы командной строки, а не properties(): те проигрывают application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:l2-" + secondLevelCache,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.sql=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                        "--logging.level.org.apache.coyote.http11=WARN",
+                        "--spring.jpa.properties.hibernate.session_factory.statement_inspector=" + SqlStatementCollector.class.getName(),
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache)) {
+            return new EntityCacheQueryCountBenchmark((WebApplicationContext) context).measureAll();
+        }
+    }
+
+    private Map<String, double[]> measureAll() throws Exception {
+        ownerId = perform(post("/users"), Map.of("name", "Владелец", "email", "owner@mail.ru"), null);
+        bookerId = perform(post("/users"), Map.of("name", "Арендатор", "email", "booker@mail.ru"), null);
+        itemId = perform(post("/items"), Map.of("name", "Дрель", "description", "Ударная дрель", "available", true), ownerId);
+        requestId = perform(post("/requests"), Map.of("description", "Нужна стремянка"), bookerId);
+
+        Map<String, double[]> results = new LinkedHashMap<>();
+        results.put("GET /users/{id}", measure(i -> get("/users/" + ownerId), i -> null, null));
+        results.put("PATCH /users/{id}", measure(i -> patch("/users/" + bookerId),
+                i -> Map.of("email", "booker" + i + "@mail.ru"), null));
+        results.put("POST /items", measure(i -> post("/items"),
+                i -> Map.of("name", "Стремянка " + i, "description", "Под запрос", "available", true,
+                        "requestId", requestId), ownerId));
+        results.put("PATCH /items/{id}", measure(i -> patch("/items/" + itemId),
+                i -> Map.of("description", "Ударная дрель, версия " + i), ownerId));
+        results.put("GET /requests/{id}", measure(i -> get("/requests/" + requestId), i -> null, bookerId));
+        results.put("POST /requests", measure(i -> post("/requests"),
+                i -> Map.of("description", "Нужен перфоратор " + i), bookerId));
+        results.put("POST /bookings", measure(i -> post("/bookings"),
+                i -> Map.of("itemId", itemId, "start", START.plusHours(2L * i).toString(),
+                        "end", START.plusHours(2L * i + 1).toString()), bookerId));
+        results.put("PATCH /bookings/{id}", measure(i -> patch("/bookings/" + bookingIds.get(i))
+                .param("approved", "true"), i -> null, ownerId));
+        return results;
+    }
+
+    /**
+     * Прогрев одним вызовом, затем CALLS вызовов. Возвращает число select и всех запросов на вызов.
+     */
+    private double[] measure(IntFunction<MockHttpServletRequestBuilder> request, IntFunction<Object> body, Long userId)
+            throws Exception {
+        perform(request.apply(0), body.apply(0), userId);
+        SqlStatementCollector.clear();
+        for (int i = 1; i <= CALLS; i++) {
+            perform(request.apply(i), body.apply(i), userId);
+        }
+        return new double[]{
+                (double) SqlStatementCollector.selects().size() / CALLS,
+                (double) SqlStatementCollector.statements().size() / CALLS
+        };
+    }
+
+    /**
+     * Выполняет запрос и возвращает id из ответа. Созданные бронирования запоминаются для их подтверждения.
+     */
+    private long perform(MockHttpServletRequestBuilder request, Object body, Long userId) throws Exception {
+        request.characterEncoding(StandardCharsets.UTF_8).accept(MediaType.APPLICATION_JSON);
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(body));
+        }
+        if (userId != null) {
+            request.header("X-Sharer-User-Id", userId);
+        }
+        String response = mvc.perform(request).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        Map<?, ?> json = mapper.readValue(response, Map.class);
+        if (json.get("id") == null) {
+            throw new IllegalStateException("Неожиданный ответ: " + response);
+        }
+        long id = ((Number) json.get("id")).longValue();
+        if (json.containsKey("booker") && json.get("status").equals("WAITING")) {
+            bookingIds.add(id);
+        }
+        return id;
+    }
+}
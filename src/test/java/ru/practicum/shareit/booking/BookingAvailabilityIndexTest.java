@@ -0,0 +1,115 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingIntervalDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingAvailabilityIndexTest {
+
+    @Mock
+    private BookingRepository repository;
+
+    @InjectMocks
+    private BookingAvailabilityIndex index;
+
+    @Test
+    void shouldLoadItemOnceAndAnswerFromIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findActiveItemIntervals(eq(1L), any()))
+                .thenReturn(List.of(
+                        new BookingIntervalDto(1L, now.plusDays(1), now.plusDays(3)),
+                        new BookingIntervalDto(2L, now.plusDays(5), now.plusDays(6))
+                ));
+
+        assertThat(index.hasCrossBookings(1L, now.plusDays(2), now.plusDays(4))).isTrue();
+        assertThat(index.hasCrossBookings(1L, now.plusDays(3).plusHours(1), now.plusDays(4))).isFalse();
+        assertThat(index.hasCrossBookings(1L, now.plusDays(4), now.plusDays(5))).isTrue();
+        assertThat(index.hasCrossBookings(1L, now.plusDays(7), now.plusDays(8))).isFalse();
+
+        verify(repository, times(1)).findActiveItemIntervals(eq(1L), any());
+        verify(repository, never()).findCrossBookings(any(), any(), any());
+    }
+
+    @Test
+    void shouldTrackCreatedAndRejectedBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем", "Описание", owner, true);
+        Booking booking = makeBooking(10L, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING);
+        when(repository.findActiveItemIntervals(eq(1L), any()))
+                .thenReturn(Collections.emptyList());
+
+        assertThat(index.hasCrossBookings(1L, now.plusDays(1), now.plusDays(2))).isFalse();
+        index.add(booking);
+        assertThat(index.hasCrossBookings(1L, now.plusDays(1), now.plusDays(2))).isTrue();
+        index.remove(1L, booking.getId());
+        assertThat(index.hasCrossBookings(1L, now.plusDays(1), now.plusDays(2))).isFalse();
+    }
+
+    @Test
+    void shouldFallBackToRepositoryWhenIntervalsOverlap() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findActiveItemIntervals(eq(1L), any()))
+                .thenReturn(List.of(
+                        new BookingIntervalDto(1L, now.plusDays(1), now.plusDays(10)),
+                        new BookingIntervalDto(2L, now.plusDays(2), now.plusDays(3))
+                ));
+        when(repository.findCrossBookings(eq(1L), any(), any()))
+                .thenReturn(List.of(new Booking()));
+
+        assertThat(index.hasCrossBookings(1L, now.plusDays(5), now.plusDays(6))).isTrue();
+        verify(repository).findCrossBookings(eq(1L), any(), any());
+    }
+
+    @Test
+    void shouldApplyChangesOnlyAfterCommit() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем", "Описание", owner, true);
+        when(repository.findActiveItemIntervals(eq(1L), any()))
+                .thenReturn(Collections.emptyList());
+        assertThat(index.hasCrossBookings(1L, now.plusDays(1), now.plusDays(2))).isFalse();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.add(makeBooking(10L, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING));
+            assertThat(index.hasCrossBookings(1L, now.plusDays(1), now.plusDays(2))).isFalse();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.hasCrossBookings(1L, now.plusDays(1), now.plusDays(2))).isFalse();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.add(makeBooking(11L, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.hasCrossBookings(1L, now.plusDays(1), now.plusDays(2))).isTrue();
+    }
+}
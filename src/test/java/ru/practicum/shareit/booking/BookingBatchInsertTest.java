@@ -0,0 +1,85 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+/**
+ * Проверяет, как insertAll обходится с ответами драйверов на батч: без базы, на заглушках JDBC.
+ */
+class BookingBatchInsertTest {
+
+    private final PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+    private final ResultSet keys = Mockito.mock(ResultSet.class);
+    private BookingRepositoryCustomImpl repository;
+    private List<Booking> bookings;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.prepareStatement(Mockito.anyString(), Mockito.any(String[].class))).thenReturn(statement);
+        Mockito.when(statement.getGeneratedKeys()).thenReturn(keys);
+        JdbcOperations jdbcOperations = Mockito.mock(JdbcOperations.class);
+        Mockito.when(jdbcOperations.execute(Mockito.any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(connection));
+        NamedParameterJdbcTemplate jdbcTemplate = Mockito.mock(NamedParameterJdbcTemplate.class);
+        Mockito.when(jdbcTemplate.getJdbcOperations()).thenReturn(jdbcOperations);
+        repository = new BookingRepositoryCustomImpl(jdbcTemplate);
+
+        LocalDateTime now = LocalDateTime.now();
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем", "Описание", owner, true);
+        bookings = List.of(
+                makeBooking(null, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING),
+                makeBooking(null, now.plusDays(3), now.plusDays(4), item, booker, BookingStatus.WAITING)
+        );
+    }
+
+    @Test
+    void shouldReturnKeysWhenDriverReportsNoRowCounts() throws Exception {
+        Mockito.when(statement.executeBatch()).thenReturn(new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+        Mockito.when(keys.next()).thenReturn(true, true, false);
+        Mockito.when(keys.getLong(1)).thenReturn(10L, 11L);
+
+        assertThat(repository.insertAll(bookings), contains(10L, 11L));
+    }
+
+    @Test
+    void shouldFailWhenDriverReturnsOnlyLastKey() throws Exception {
+        Mockito.when(statement.executeBatch()).thenReturn(new int[]{1, 1});
+        Mockito.when(keys.next()).thenReturn(true, false);
+        Mockito.when(keys.getLong(1)).thenReturn(11L);
+
+        assertThrows(IncorrectResultSizeDataAccessException.class, () -> repository.insertAll(bookings));
+    }
+
+    @Test
+    void shouldFailWhenBatchRowFailed() throws Exception {
+        Mockito.when(statement.executeBatch()).thenReturn(new int[]{1, Statement.EXECUTE_FAILED});
+
+        assertThrows(JdbcUpdateAffectedIncorrectNumberOfRowsException.class, () -> repository.insertAll(bookings));
+    }
+}
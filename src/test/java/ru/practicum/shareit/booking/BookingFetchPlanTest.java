@@ -0,0 +1,104 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.SqlStatementCollector;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+/**
+ * Проверяет, что чтение бронирований вместе с маппингом в BookingDto не догружает
+ * вещи, владельцев, запросы и букеров отдельными запросами.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.SqlStatementCollector")
+public class BookingFetchPlanTest {
+    private static final int BOOKINGS = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookingRepository repository;
+
+    private User owner;
+    private Booking booking;
+
+    @BeforeEach
+    public void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        owner = entityManager.persist(makeUser(null, "Владелец", "owner@mail.ru"));
+        for (int i = 0; i < BOOKINGS; i++) {
+            User requester = entityManager.persist(makeUser(null, "Автор" + i, "requester" + i + "@mail.ru"));
+            ItemRequest request = new ItemRequest();
+            request.setDescription("Запрос" + i);
+            request.setRequester(requester);
+            entityManager.persist(request);
+            Item item = makeItem(null, "Итем" + i, "Описание" + i, owner, true);
+            item.setRequest(request);
+            entityManager.persist(item);
+            User booker = entityManager.persist(makeUser(null, "Букер" + i, "booker" + i + "@mail.ru"));
+            booking = entityManager.persist(makeBooking(null, now.plusDays(i), now.plusDays(i).plusHours(1), item, booker, BookingStatus.WAITING));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void shouldLoadPageInOneStatementWhateverItsSize() {
+        for (int size : new int[]{1, 10, BOOKINGS}) {
+            entityManager.clear();
+            SqlStatementCollector.clear();
+
+            List<BookingDto> dtos = BookingMapper.fromViews(repository.findViews(BookingQuery.builder()
+                    .role(BookingRole.OWNER).userId(owner.getId()).limit(size).build()));
+
+            assertThat(dtos).hasSize(size);
+            assertThat(dtos.get(0).getItem().getRequestId()).isNotNull();
+            assertThat(SqlStatementCollector.statements())
+                    .as("Запросы для страницы из %d бронирований", size)
+                    .hasSize(1);
+        }
+    }
+
+    @Test
+    public void shouldLoadSingleBookingInOneStatement() {
+        SqlStatementCollector.clear();
+
+        BookingDto byUser = BookingMapper.toDto(repository.findByIdAndUserId(booking.getId(), owner.getId()).orElseThrow());
+        entityManager.clear();
+        BookingDto byId = BookingMapper.toDto(repository.findWithDetailsById(booking.getId()).orElseThrow());
+
+        assertThat(byUser.getBooker().getName()).isEqualTo(byId.getBooker().getName());
+        assertThat(SqlStatementCollector.statements()).hasSize(2);
+    }
+
+    @Test
+    public void shouldReadViewsWithoutManagedEntities() {
+        BookingQuery query = BookingQuery.builder().role(BookingRole.OWNER).userId(owner.getId()).limit(BOOKINGS).build();
+        SqlStatementCollector.clear();
+
+        List<BookingDto> fromViews = BookingMapper.fromViews(repository.findViews(query));
+
+        assertThat(SqlStatementCollector.statements()).hasSize(1);
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+        for (BookingDto dto : fromViews) {
+            assertThat(dto).isEqualTo(BookingMapper.toDto(repository.findWithDetailsById(dto.getId()).orElseThrow()));
+        }
+    }
+}
@@ -9,12 +9,15 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -45,7 +48,7 @@ public class BookingIntegrationTest {
         ItemDto itemDto = makeItemDto(null, null, false);
         mvc.perform(patch("/items/2")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -73,7 +76,7 @@ public class BookingIntegrationTest {
         ItemDto itemDto = makeItemDto(null, null, true);
         mvc.perform(patch("/items/2")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -175,7 +178,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(10)
     public void bookingSetApproveTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         long bookerId = 1;
         long bookingId = 1;
         mvc.perform(patch("/bookings/" + bookingId)
@@ -230,7 +233,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(12)
     public void bookingGetByOwnerTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         long bookerId = 1;
         long bookingId = 2;
         mvc.perform(get("/bookings/" + bookingId)
@@ -331,7 +334,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(19)
     public void bookingGetAllByOwnerTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         mvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", userId)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -346,7 +349,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(20)
     public void bookingGetAllByOwnerAllTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         mvc.perform(get("/bookings/owner")
                         .param("state", "ALL")
                         .header("X-Sharer-User-Id", userId)
@@ -362,7 +365,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(21)
     public void bookingGetAllByOwnerFutureTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         mvc.perform(get("/bookings/owner")
                         .param("state", "FUTURE")
                         .header("X-Sharer-User-Id", userId)
@@ -378,7 +381,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(22)
     public void bookingGetAllByOwnerWrongStateTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         mvc.perform(get("/bookings/owner")
                         .param("state", "UNSUPPORTED_STATUS")
                         .header("X-Sharer-User-Id", userId)
@@ -406,7 +409,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(24)
     public void bookingGetByOtherTest() throws Exception {
-        long userId = 5;
+        long userId = 4;
         long bookingId = 1;
         mvc.perform(get("/bookings/" + bookingId)
                         .header("X-Sharer-User-Id", userId)
@@ -419,7 +422,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(25)
     public void bookingChangeStatusWithoutBodyTest() throws Exception {
-        long userId = 5;
+        long userId = 4;
         long bookingId = 2;
         mvc.perform(patch("/bookings/" + bookingId)
                         .header("X-Sharer-User-Id", userId)
@@ -446,7 +449,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(27)
     public void bookingSetApproveByOwnerTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         long bookingId = 2;
         mvc.perform(patch("/bookings/" + bookingId)
                         .param("approved", "true")
@@ -462,7 +465,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(28)
     public void bookingChangeStatusAfterApproveTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         long bookingId = 2;
         mvc.perform(patch("/bookings/" + bookingId)
                         .param("approved", "true")
@@ -497,7 +500,7 @@ public class BookingIntegrationTest {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime start = now.plusDays(1);
         LocalDateTime end = now.plusDays(1).plusHours(1);
-        long userId = 4;
+        long userId = 3;
         long itemId = 1;
         BookingRequestDto bookingRequestDto = makeBookingRequestDto(itemId, start, end);
         mvc.perform(post("/bookings")
@@ -530,7 +533,7 @@ public class BookingIntegrationTest {
     @Order(32)
     public void itemGetWithBookingsTest() throws Exception {
         long itemId = 2;
-        long userId = 4;
+        long userId = 3;
         Thread.sleep(4000);
         mvc.perform(get("/items/" + itemId)
                         .header("X-Sharer-User-Id", userId)
@@ -598,7 +601,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(36)
     public void bookingGetAllByOwnerWaitingTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         String state = "WAITING";
         mvc.perform(get("/bookings/owner")
                         .param("state", state)
@@ -615,7 +618,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(37)
     public void bookingSetReject2Test() throws Exception {
-        long userId = 4;
+        long userId = 3;
         long bookingId = 4;
         mvc.perform(patch("/bookings/" + bookingId)
                         .param("approved", "false")
@@ -648,7 +651,7 @@ public class BookingIntegrationTest {
     @Test
     @Order(39)
     public void bookingGetAllByOwnerRejectedTest() throws Exception {
-        long userId = 4;
+        long userId = 3;
         String state = "REJECTED";
         mvc.perform(get("/bookings/owner")
                         .param("state", state)
@@ -991,4 +994,80 @@ public class BookingIntegrationTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
-    }
\ No newline at end of file
+
+    @Test
+    @Order(61)
+    public void bookingDecideAllTest() throws Exception {
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(9999L, true));
+        mvc.perform(patch("/bookings")
+                        .content(mapper.writeValueAsString(decisions))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].bookingId", is(9999)))
+                .andExpect(jsonPath("$[0].outcome", is("NOT_FOUND")));
+    }
+
+    @Test
+    @Order(62)
+    public void bookingDecideAllEmptyTest() throws Exception {
+        mvc.perform(patch("/bookings")
+                        .content("[]")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(63)
+    public void bookingDecideAllWithoutDecisionTest() throws Exception {
+        mvc.perform(patch("/bookings")
+                        .content("[{\"bookingId\": 1}]")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(64)
+    public void bookingDecideAllNullElementTest() throws Exception {
+        mvc.perform(patch("/bookings")
+                        .content("[null]")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(65)
+    public void bookingGetAllEmptyByCursorAndOffsetTest() throws Exception {
+        long userId = 100;
+        String cursor = new BookingCursor(LocalDateTime.now().plusYears(10), Long.MAX_VALUE).encode();
+        for (String path : List.of("/bookings", "/bookings/owner")) {
+            mvc.perform(get(path)
+                            .param("cursor", cursor)
+                            .header("X-Sharer-User-Id", userId)
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(0)));
+            mvc.perform(get(path)
+                            .param("from", "0")
+                            .header("X-Sharer-User-Id", userId)
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isNotFound());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.SqlStatementCollector;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+/**
+ * Прогоняет запросы BookingRepository на заполненной базе и проверяет через EXPLAIN,
+ * что ни один из них не читает bookings или items полным сканированием таблицы.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.SqlStatementCollector")
+public class BookingQueryPlanTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookingRepository repository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private User owner;
+    private User booker;
+    private List<Long> itemIds;
+
+    @BeforeEach
+    public void seed() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(entityManager.persist(makeUser(null, "Юзер" + i, "user" + i + "@mail.ru")));
+        }
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(entityManager.persist(makeItem(null, "Итем" + i, "Описание" + i, users.get(i % 10), true)));
+        }
+        BookingStatus[] statuses = BookingStatus.values();
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime start = now.plusHours(i - 500L);
+            entityManager.persist(makeBooking(null, start, start.plusMinutes(30), items.get(i % items.size()),
+                    users.get(10 + i % 10), statuses[i % statuses.length]));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        owner = users.get(0);
+        booker = users.get(10);
+        itemIds = List.of(items.get(0).getId(), items.get(1).getId());
+        SqlStatementCollector.clear();
+    }
+
+    @Test
+    public void bookerQueriesShouldUseIndexes() {
+        assertListQueriesIndexed(BookingRole.BOOKER, booker.getId());
+    }
+
+    @Test
+    public void ownerQueriesShouldUseIndexes() {
+        assertListQueriesIndexed(BookingRole.OWNER, owner.getId());
+    }
+
+    @Test
+    public void itemQueriesShouldUseIndexes() {
+        Long itemId = itemIds.get(0);
+        assertIndexed(() -> repository.findByIdAndUserId(1L, owner.getId()));
+        assertIndexed(() -> repository.findWithDetailsById(1L));
+        assertIndexed(() -> repository.findCrossBookings(itemId, now, now.plusDays(1)));
+        assertIndexed(() -> repository.findActiveItemIntervals(itemId, now));
+        assertIndexed(() -> repository.existsPastBooking(itemId, booker.getId(), now));
+        assertIndexed(() -> repository.findLastItemBookings(itemIds, now));
+        assertIndexed(() -> repository.findNextItemBookings(itemIds, now));
+        assertIndexed(() -> repository.findNextChanges(itemIds, now));
+        assertIndexed(() -> itemRepository.findFreeIds(itemIds, now, now.plusDays(1)));
+    }
+
+    private void assertListQueriesIndexed(BookingRole role, Long userId) {
+        BookingCursor cursor = new BookingCursor(now, Long.MAX_VALUE);
+        for (BookingState state : BookingState.values()) {
+            BookingQuery.BookingQueryBuilder query = BookingQuery.builder().role(role).userId(userId).state(state).now(now);
+            assertIndexed(() -> repository.findViews(query.build()));
+            assertIndexed(() -> repository.findViews(query.offset(40).build()));
+            assertIndexed(() -> repository.findViews(query.offset(0).cursor(cursor).build()));
+            assertIndexed(() -> repository.findViews(query.cursor(null).windowStart(now).windowEnd(now.plusDays(1)).build()));
+        }
+    }
+
+    private void assertIndexed(Runnable query) {
+        SqlStatementCollector.clear();
+        query.run();
+        List<String> selects = SqlStatementCollector.selects();
+        assertThat(selects).isNotEmpty();
+        for (String sql : selects) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+            assertThat(plan)
+                    .as("План запроса %s", sql)
+                    .doesNotContain("BOOKINGS.tableScan")
+                    .doesNotContain("ITEMS.tableScan");
+        }
+    }
+}
@@ -5,18 +5,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingOwnershipDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static ru.practicum.shareit.ObjectMaker.*;
 
@@ -95,6 +99,57 @@ public class BookingRepositoryTest {
                 .hasFieldOrPropertyWithValue("status", BookingStatus.APPROVED);
     }
 
+    @Test
+    public void shouldUpdateOnlyWaitingBookingOfOwner() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
+        Booking booking = repository.save(makeBooking(null, start, end, item, booker, BookingStatus.WAITING));
+
+        int byBooker = repository.updateWaitingStatus(BookingStatus.APPROVED, List.of(booking.getId()), booker.getId());
+        int byOwner = repository.updateWaitingStatus(BookingStatus.APPROVED, List.of(booking.getId()), owner.getId());
+        int again = repository.updateWaitingStatus(BookingStatus.REJECTED, List.of(booking.getId()), owner.getId());
+        entityManager.clear();
+
+        assertThat(List.of(byBooker, byOwner, again)).containsExactly(0, 1, 0);
+        assertThat(repository.findById(booking.getId()))
+                .isNotEmpty()
+                .get()
+                .hasFieldOrPropertyWithValue("status", BookingStatus.APPROVED);
+    }
+
+    @Test
+    public void shouldUpdateOnlyWaitingBookingsOfOwnerInOneStatement() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
+        Item bookerItem = entityManager.persist(makeItem(null, "Итем2", "Описание2", booker, true));
+        Booking waiting = entityManager.persist(makeBooking(null, start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        Booking decided = entityManager.persist(makeBooking(null, start, start.plusDays(1), item, booker, BookingStatus.APPROVED));
+        Booking foreign = entityManager.persist(makeBooking(null, start, start.plusDays(1), bookerItem, owner, BookingStatus.WAITING));
+        entityManager.flush();
+
+        assertThat(repository.lockAllById(List.of(foreign.getId(), waiting.getId(), decided.getId())))
+                .containsExactly(waiting.getId(), decided.getId(), foreign.getId());
+        int updated = repository.updateWaitingStatus(
+                BookingStatus.REJECTED,
+                List.of(waiting.getId(), decided.getId(), foreign.getId()),
+                owner.getId()
+        );
+        entityManager.clear();
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(repository.findOwnership(List.of(waiting.getId(), foreign.getId())))
+                .extracting(BookingOwnershipDto::getId, BookingOwnershipDto::getStatus, BookingOwnershipDto::getOwnerId)
+                .containsExactlyInAnyOrder(
+                        tuple(waiting.getId(), BookingStatus.REJECTED, owner.getId()),
+                        tuple(foreign.getId(), BookingStatus.WAITING, booker.getId())
+                );
+    }
+
     @Test
     public void shouldFindCurrentByBookerId() {
         LocalDateTime now = LocalDateTime.now();
@@ -105,17 +160,12 @@ public class BookingRepositoryTest {
         entityManager.persist(makeBooking(null, now.minusDays(1), now.plusDays(1), item1, booker, BookingStatus.WAITING));
         entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item2, booker, BookingStatus.WAITING));
 
-        Sort sort = Sort.by("startDate").descending();
-        Pageable pageable = PageRequest.of(0, 20, sort);
-        List<Booking> listBookings = repository.findCurrentByBookerId(booker.getId(), LocalDateTime.now(), pageable);
+        List<BookingView> listBookings = find(BookingRole.BOOKER, booker.getId(), BookingState.CURRENT);
 
         assertThat(listBookings)
                 .hasSize(1)
                 .element(0)
-                .hasFieldOrProperty("item");
-        assertThat(listBookings.get(0).getItem())
-                .isInstanceOf(Item.class)
-                .hasFieldOrPropertyWithValue("name", "Итем");
+                .hasFieldOrPropertyWithValue("itemName", "Итем");
     }
 
     @Test
@@ -128,17 +178,12 @@ public class BookingRepositoryTest {
         entityManager.persist(makeBooking(null, now.minusDays(1), now.plusDays(1), item1, booker, BookingStatus.WAITING));
         entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item2, booker, BookingStatus.WAITING));
 
-        Sort sort = Sort.by("startDate").descending();
-        Pageable pageable = PageRequest.of(0, 20, sort);
-        List<Booking> listBookings = repository.findCurrentByOwnerId(owner.getId(), LocalDateTime.now(), pageable);
+        List<BookingView> listBookings = find(BookingRole.OWNER, owner.getId(), BookingState.CURRENT);
 
         assertThat(listBookings)
                 .hasSize(1)
                 .element(0)
-                .hasFieldOrProperty("item");
-        assertThat(listBookings.get(0).getItem())
-                .isInstanceOf(Item.class)
-                .hasFieldOrPropertyWithValue("name", "Итем");
+                .hasFieldOrPropertyWithValue("itemName", "Итем");
     }
 
     @Test
@@ -151,17 +196,12 @@ public class BookingRepositoryTest {
         entityManager.persist(makeBooking(null, now.minusDays(2), now.minusDays(1), item1, booker, BookingStatus.WAITING));
         entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item2, booker, BookingStatus.WAITING));
 
-        Sort sort = Sort.by("startDate").descending();
-        Pageable pageable = PageRequest.of(0, 20, sort);
-        List<Booking> listBookings = repository.findPastByBookerId(booker.getId(), LocalDateTime.now(), pageable);
+        List<BookingView> listBookings = find(BookingRole.BOOKER, booker.getId(), BookingState.PAST);
 
         assertThat(listBookings)
                 .hasSize(1)
                 .element(0)
-                .hasFieldOrProperty("item");
-        assertThat(listBookings.get(0).getItem())
-                .isInstanceOf(Item.class)
-                .hasFieldOrPropertyWithValue("name", "Итем");
+                .hasFieldOrPropertyWithValue("itemName", "Итем");
     }
 
     @Test
@@ -174,17 +214,12 @@ public class BookingRepositoryTest {
         entityManager.persist(makeBooking(null, now.minusDays(2), now.minusDays(1), item1, booker, BookingStatus.WAITING));
         entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item2, booker, BookingStatus.WAITING));
 
-        Sort sort = Sort.by("startDate").descending();
-        Pageable pageable = PageRequest.of(0, 20, sort);
-        List<Booking> listBookings = repository.findPastByOwnerId(owner.getId(), LocalDateTime.now(), pageable);
+        List<BookingView> listBookings = find(BookingRole.OWNER, owner.getId(), BookingState.PAST);
 
         assertThat(listBookings)
                 .hasSize(1)
                 .element(0)
-                .hasFieldOrProperty("item");
-        assertThat(listBookings.get(0).getItem())
-                .isInstanceOf(Item.class)
-                .hasFieldOrPropertyWithValue("name", "Итем");
+                .hasFieldOrPropertyWithValue("itemName", "Итем");
     }
 
     @Test
@@ -197,17 +232,12 @@ public class BookingRepositoryTest {
         entityManager.persist(makeBooking(null, now.minusDays(2), now.minusDays(1), item1, booker, BookingStatus.WAITING));
         entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item2, booker, BookingStatus.WAITING));
 
-        Sort sort = Sort.by("startDate").descending();
-        Pageable pageable = PageRequest.of(0, 20, sort);
-        List<Booking> listBookings = repository.findFutureByBookerId(booker.getId(), LocalDateTime.now(), pageable);
+        List<BookingView> listBookings = find(BookingRole.BOOKER, booker.getId(), BookingState.FUTURE);
 
         assertThat(listBookings)
                 .hasSize(1)
                 .element(0)
-                .hasFieldOrProperty("item");
-        assertThat(listBookings.get(0).getItem())
-                .isInstanceOf(Item.class)
-                .hasFieldOrPropertyWithValue("name", "Итем2");
+                .hasFieldOrPropertyWithValue("itemName", "Итем2");
     }
 
     @Test
@@ -220,17 +250,12 @@ public class BookingRepositoryTest {
         entityManager.persist(makeBooking(null, now.minusDays(2), now.minusDays(1), item1, booker, BookingStatus.WAITING));
         entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item2, booker, BookingStatus.WAITING));
 
-        Sort sort = Sort.by("startDate").descending();
-        Pageable pageable = PageRequest.of(0, 20, sort);
-        List<Booking> listBookings = repository.findFutureByOwnerId(owner.getId(), LocalDateTime.now(), pageable);
+        List<BookingView> listBookings = find(BookingRole.OWNER, owner.getId(), BookingState.FUTURE);
 
         assertThat(listBookings)
                 .hasSize(1)
                 .element(0)
-                .hasFieldOrProperty("item");
-        assertThat(listBookings.get(0).getItem())
-                .isInstanceOf(Item.class)
-                .hasFieldOrPropertyWithValue("name", "Итем2");
+                .hasFieldOrPropertyWithValue("itemName", "Итем2");
     }
 
     @Test
@@ -264,6 +289,106 @@ public class BookingRepositoryTest {
                 .hasSize(2);
     }
 
+    @Test
+    public void shouldInsertOnlyIfDatesAreFree() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
+        entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(3), item, booker, BookingStatus.WAITING));
+        entityManager.persist(makeBooking(null, now.plusDays(4), now.plusDays(6), item, booker, BookingStatus.REJECTED));
+        entityManager.flush();
+
+        Optional<Long> crossed = repository.insertIfFree(makeBooking(null, now.plusDays(2), now.plusDays(5), item, booker, BookingStatus.WAITING));
+        Optional<Long> free = repository.insertIfFree(makeBooking(null, now.plusDays(4), now.plusDays(5), item, booker, BookingStatus.WAITING));
+
+        assertThat(crossed).isEmpty();
+        assertThat(free).isPresent();
+        assertThat(repository.findById(free.get()))
+                .isNotEmpty()
+                .get()
+                .hasFieldOrPropertyWithValue("status", BookingStatus.WAITING);
+    }
+
+    @Test
+    public void shouldInsertAllInBatch() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
+        entityManager.flush();
+
+        List<Long> ids = repository.insertAll(List.of(
+                makeBooking(null, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING),
+                makeBooking(null, now.plusDays(3), now.plusDays(4), item, booker, BookingStatus.WAITING)
+        ));
+
+        assertThat(ids).hasSize(2).doesNotContainNull();
+        assertThat(repository.findById(ids.get(1)))
+                .isNotEmpty()
+                .get()
+                .hasFieldOrPropertyWithValue("startDate", now.plusDays(3))
+                .hasFieldOrPropertyWithValue("status", BookingStatus.WAITING);
+    }
+
+    @Test
+    public void shouldFindPagesAfterCursor() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
+        Booking booking1 = entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING));
+        Booking booking2 = entityManager.persist(makeBooking(null, now.plusDays(3), now.plusDays(4), item, booker, BookingStatus.WAITING));
+        Booking booking3 = entityManager.persist(makeBooking(null, now.plusDays(3), now.plusDays(5), item, booker, BookingStatus.WAITING));
+
+        List<BookingView> firstPage = repository.findViews(BookingQuery.builder()
+                .role(BookingRole.OWNER).userId(owner.getId()).now(now).limit(2).build());
+        BookingCursor cursor = BookingCursor.decode(new BookingCursor(firstPage.get(1).getStart(), firstPage.get(1).getId()).encode());
+        List<BookingView> secondPage = repository.findViews(BookingQuery.builder()
+                .role(BookingRole.OWNER).userId(owner.getId()).now(now).cursor(cursor).limit(2).build());
+        List<BookingView> bookerPage = repository.findViews(BookingQuery.builder()
+                .role(BookingRole.BOOKER).userId(booker.getId()).state(BookingState.FUTURE).now(now).cursor(cursor).limit(2).build());
+
+        assertThat(firstPage).extracting(BookingView::getId).containsExactly(booking3.getId(), booking2.getId());
+        assertThat(secondPage).extracting(BookingView::getId).containsExactly(booking1.getId());
+        assertThat(bookerPage).extracting(BookingView::getId).containsExactly(booking1.getId());
+    }
+
+    @Test
+    public void shouldFindByStatusWithOffset() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
+        Booking booking1 = entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.REJECTED));
+        entityManager.persist(makeBooking(null, now.plusDays(3), now.plusDays(4), item, booker, BookingStatus.REJECTED));
+        entityManager.persist(makeBooking(null, now.plusDays(5), now.plusDays(6), item, booker, BookingStatus.WAITING));
+
+        List<BookingView> listBookings = repository.findViews(BookingQuery.builder()
+                .role(BookingRole.OWNER).userId(owner.getId()).state(BookingState.REJECTED).offset(1).limit(20).build());
+
+        assertThat(listBookings).extracting(BookingView::getId).containsExactly(booking1.getId());
+        assertThat(find(BookingRole.BOOKER, booker.getId(), BookingState.WAITING)).hasSize(1);
+        assertThat(find(BookingRole.BOOKER, owner.getId(), BookingState.ALL)).isEmpty();
+    }
+
+    @Test
+    public void shouldFindInsideTimeWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
+        entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING));
+        Booking booking2 = entityManager.persist(makeBooking(null, now.plusDays(3), now.plusDays(5), item, booker, BookingStatus.WAITING));
+        entityManager.persist(makeBooking(null, now.plusDays(6), now.plusDays(7), item, booker, BookingStatus.WAITING));
+
+        List<BookingView> listBookings = repository.findViews(BookingQuery.builder()
+                .role(BookingRole.BOOKER).userId(booker.getId())
+                .windowStart(now.plusDays(4)).windowEnd(now.plusDays(5).plusHours(1)).build());
+
+        assertThat(listBookings).extracting(BookingView::getId).containsExactly(booking2.getId());
+    }
+
     @Test
     public void shouldFindLastItemBookings() {
         LocalDateTime now = LocalDateTime.now();
@@ -315,4 +440,8 @@ public class BookingRepositoryTest {
                 .element(1)
                 .hasFieldOrPropertyWithValue("id", booking4.getId());
     }
+
+    private List<BookingView> find(BookingRole role, Long userId, BookingState state) {
+        return repository.findViews(BookingQuery.builder().role(role).userId(userId).state(state).build());
+    }
 }
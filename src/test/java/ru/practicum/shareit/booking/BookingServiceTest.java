@@ -3,26 +3,42 @@ package ru.practicum.shareit.booking;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingIntervalDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingOwnershipDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingSlotDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDecisionOutcome;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.exeptions.BookingImpossibleException;
+import ru.practicum.shareit.error.exeptions.BookingValidationException;
+import ru.practicum.shareit.item.ItemBookingSummaryService;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserExistenceCache;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static ru.practicum.shareit.ObjectMaker.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +53,15 @@ class BookingServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private BookingAvailabilityIndex bookingAvailabilityIndex;
+
+    @Mock
+    private ItemBookingSummaryService itemBookingSummaryService;
+
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
     @InjectMocks
     private BookingServiceImpl service;
 
@@ -54,14 +79,14 @@ class BookingServiceTest {
 
 
         Mockito
-                .when(itemRepository.findById(bookingRequestDto.getItemId()))
+                .when(itemRepository.findByIdForUpdate(bookingRequestDto.getItemId()))
                 .thenReturn(Optional.of(item));
         Mockito
                 .when(userRepository.findById(booker.getId()))
                 .thenReturn(Optional.of(booker));
         Mockito
-                .when(repository.save(BookingMapper.toObject(bookingRequestDto, item, booker, BookingStatus.WAITING)))
-                .thenReturn(booking);
+                .when(repository.insertIfFree(BookingMapper.toObject(bookingRequestDto, item, booker, BookingStatus.WAITING)))
+                .thenReturn(Optional.of(booking.getId()));
 
 
         // when
@@ -74,4 +99,223 @@ class BookingServiceTest {
         assertThat(savedBookingDto.getItem().getId(), equalTo(booking.getItem().getId()));
         assertThat(savedBookingDto.getStatus(), equalTo(booking.getStatus()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("JUnit test for create Booking method when dates are already taken")
+    void givenTakenDates_whenSaveBooking_thenThrowBookingImpossibleException() {
+        //given
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем","Описание", owner, true);
+        BookingRequestDto bookingRequestDto = makeBookingRequestDto(1, start, end);
+
+        Mockito
+                .when(itemRepository.findByIdForUpdate(bookingRequestDto.getItemId()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(userRepository.findById(booker.getId()))
+                .thenReturn(Optional.of(booker));
+        Mockito
+                .when(repository.insertIfFree(Mockito.any()))
+                .thenReturn(Optional.empty());
+
+        // when - then
+        assertThrows(BookingImpossibleException.class, () -> service.create(bookingRequestDto, booker.getId()));
+    }
+
+    @Test
+    @DisplayName("JUnit test for create Booking method when availability index is stale")
+    void givenStaleIndex_whenSaveBooking_thenInsertDecidesAndIndexIsReloaded() {
+        //given
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем","Описание", owner, true);
+        BookingRequestDto bookingRequestDto = makeBookingRequestDto(1, start, end);
+
+        Mockito
+                .when(itemRepository.findByIdForUpdate(bookingRequestDto.getItemId()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(userRepository.findById(booker.getId()))
+                .thenReturn(Optional.of(booker));
+        Mockito
+                .when(bookingAvailabilityIndex.hasCrossBookings(item.getId(), start, end))
+                .thenReturn(true);
+        Mockito
+                .when(repository.insertIfFree(Mockito.any()))
+                .thenReturn(Optional.of(1L));
+
+        // when
+        BookingDto savedBookingDto = service.create(bookingRequestDto, booker.getId());
+
+        // then
+        assertThat(savedBookingDto.getId(), equalTo(1L));
+        Mockito.verify(bookingAvailabilityIndex).invalidate(item.getId());
+    }
+
+    @Test
+    @DisplayName("JUnit test for decideAll Booking method")
+    void givenDecisions_whenDecideAll_thenLockAndUpdateByStatus() {
+        //given
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем","Описание", owner, true);
+        Booking approved = makeBooking(1L, start, start.plusDays(1), item, booker, BookingStatus.APPROVED);
+        Booking rejected = makeBooking(2L, start.plusDays(2), start.plusDays(3), item, booker, BookingStatus.REJECTED);
+
+        Mockito
+                .when(userExistenceCache.exists(owner.getId()))
+                .thenReturn(true);
+        Mockito
+                .when(repository.findOwnership(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(
+                        new BookingOwnershipDto(1L, BookingStatus.WAITING, owner.getId()),
+                        new BookingOwnershipDto(2L, BookingStatus.WAITING, owner.getId()),
+                        new BookingOwnershipDto(3L, BookingStatus.WAITING, booker.getId())
+                ));
+        Mockito
+                .when(repository.findWithDetailsByIdIn(Mockito.anyCollection()))
+                .thenReturn(List.of(approved, rejected));
+
+        // when
+        List<BookingDecisionResultDto> results = service.decideAll(owner.getId(), List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false),
+                new BookingDecisionDto(3L, true)
+        ));
+
+        // then
+        assertThat(results.stream().map(BookingDecisionResultDto::getOutcome).collect(Collectors.toList()), equalTo(List.of(
+                BookingDecisionOutcome.APPROVED, BookingDecisionOutcome.REJECTED, BookingDecisionOutcome.NOT_OWNER
+        )));
+        InOrder inOrder = Mockito.inOrder(repository);
+        inOrder.verify(repository).lockAllById(Set.of(1L, 2L, 3L));
+        inOrder.verify(repository).findOwnership(Set.of(1L, 2L, 3L));
+        Mockito.verify(repository).updateWaitingStatus(BookingStatus.APPROVED, List.of(1L), owner.getId());
+        Mockito.verify(repository).updateWaitingStatus(BookingStatus.REJECTED, List.of(2L), owner.getId());
+        Mockito.verify(bookingAvailabilityIndex).remove(item.getId(), 2L);
+    }
+
+    @Test
+    @DisplayName("JUnit test for approve Booking method")
+    void givenWaitingBooking_whenApprove_thenUpdateOnceAndReturnApproved() {
+        //given
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем","Описание", owner, true);
+        Booking booking = makeBooking(1L, start, start.plusDays(1), item, booker, BookingStatus.APPROVED);
+
+        Mockito
+                .when(repository.updateWaitingStatus(BookingStatus.APPROVED, List.of(booking.getId()), owner.getId()))
+                .thenReturn(1);
+        Mockito
+                .when(repository.findWithDetailsById(booking.getId()))
+                .thenReturn(Optional.of(booking));
+
+        // when
+        BookingDto approvedBookingDto = service.approve(owner.getId(), booking.getId(), true);
+
+        // then - verify the output
+        assertThat(approvedBookingDto.getStatus(), equalTo(BookingStatus.APPROVED));
+        Mockito.verifyNoInteractions(userRepository, bookingAvailabilityIndex, itemBookingSummaryService);
+    }
+
+    @Test
+    @DisplayName("JUnit test for approve Booking method when booking is already decided")
+    void givenDecidedBooking_whenApprove_thenThrowBookingValidationException() {
+        //given
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем","Описание", owner, true);
+        Booking booking = makeBooking(1L, start, start.plusDays(1), item, booker, BookingStatus.REJECTED);
+
+        Mockito
+                .when(repository.updateWaitingStatus(BookingStatus.APPROVED, List.of(booking.getId()), owner.getId()))
+                .thenReturn(0);
+        Mockito
+                .when(userExistenceCache.exists(owner.getId()))
+                .thenReturn(true);
+        Mockito
+                .when(repository.findWithDetailsById(booking.getId()))
+                .thenReturn(Optional.of(booking));
+
+        // when - then
+        assertThrows(BookingValidationException.class, () -> service.approve(owner.getId(), booking.getId(), true));
+    }
+
+    @Test
+    @DisplayName("JUnit test for batch create Booking method")
+    void givenFreeSlots_whenSaveAll_thenInsertOnceAndReturnBookings() {
+        //given
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем","Описание", owner, true);
+        BookingBatchRequestDto batchRequestDto = new BookingBatchRequestDto(item.getId(), List.of(
+                new BookingSlotDto(start.plusDays(2), start.plusDays(3)),
+                new BookingSlotDto(start, start.plusDays(1))
+        ));
+
+        Mockito
+                .when(itemRepository.findByIdForUpdate(item.getId()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(userRepository.findById(booker.getId()))
+                .thenReturn(Optional.of(booker));
+        Mockito
+                .when(repository.findActiveItemIntervals(Mockito.eq(item.getId()), Mockito.any()))
+                .thenReturn(List.of(new BookingIntervalDto(10L, start.plusDays(4), start.plusDays(5))));
+        Mockito
+                .when(repository.insertAll(Mockito.anyList()))
+                .thenReturn(List.of(11L, 12L));
+
+        // when
+        List<BookingDto> savedBookingDtos = service.createAll(batchRequestDto, booker.getId());
+
+        // then - verify the output
+        assertThat(savedBookingDtos.size(), equalTo(2));
+        assertThat(savedBookingDtos.get(0).getId(), equalTo(11L));
+        assertThat(savedBookingDtos.get(1).getStart(), equalTo(start));
+        Mockito.verify(repository, Mockito.times(1)).insertAll(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("JUnit test for batch create Booking method when slots cross")
+    void givenCrossingSlots_whenSaveAll_thenThrowBookingImpossibleException() {
+        //given
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        User booker = makeUser(2L, "Иван", "petrov@mail.ru");
+        Item item = makeItem(1L, "Итем","Описание", owner, true);
+        BookingBatchRequestDto crossEachOther = new BookingBatchRequestDto(item.getId(), List.of(
+                new BookingSlotDto(start, start.plusDays(2)),
+                new BookingSlotDto(start.plusDays(1), start.plusDays(3))
+        ));
+        BookingBatchRequestDto crossExisting = new BookingBatchRequestDto(item.getId(), List.of(
+                new BookingSlotDto(start.plusDays(5), start.plusDays(6)),
+                new BookingSlotDto(start, start.plusDays(1))
+        ));
+
+        Mockito
+                .when(itemRepository.findByIdForUpdate(item.getId()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(userRepository.findById(booker.getId()))
+                .thenReturn(Optional.of(booker));
+        Mockito
+                .when(repository.findActiveItemIntervals(Mockito.eq(item.getId()), Mockito.any()))
+                .thenReturn(List.of(new BookingIntervalDto(10L, start.minusHours(1), start.plusHours(1))));
+
+        // when - then
+        assertThrows(BookingImpossibleException.class, () -> service.createAll(crossEachOther, booker.getId()));
+        assertThrows(BookingImpossibleException.class, () -> service.createAll(crossExisting, booker.getId()));
+        Mockito.verify(repository, Mockito.never()).insertAll(Mockito.anyList());
+    }
+}
@@ -4,7 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -21,23 +21,19 @@ public class CommentBookingRepositoryTest {
     @Autowired
     private CommentRepository repository;
 
-    @Test
-    public void shouldFindByItemIdWithAuthor() {
-
-    }
-
     @Test
     public void shouldStoreBooking() {
         User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
         User commentator = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
         Item item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
-        entityManager.persist(makeComment("коментарий", item, commentator));
+        repository.save(makeComment("коментарий", item, commentator));
 
-        List<CommentDto> comments = repository.findByItemIdWithAuthor(item.getId());
+        List<Comment> comments = repository.findAll();
 
         assertThat(comments)
                 .hasSize(1)
                 .element(0)
-                .hasFieldOrPropertyWithValue("text", "коментарий");
+                .hasFieldOrPropertyWithValue("text", "коментарий")
+                .hasFieldOrPropertyWithValue("author", commentator);
     }
 }
@@ -41,7 +41,7 @@ public class CommentIntegrationTest {
     @Order(1)
     public void commentCreateWithoutBookingTest() throws Exception {
         long itemId = 1L;
-        long userId = 4L;
+        long userId = 3L;
         CommentRequestDto commentRequestDto = makeCommentRequestDto("Comment for item 1");
         mvc.perform(post("/items/" + itemId + "/comment")
                         .content(mapper.writeValueAsString(commentRequestDto))
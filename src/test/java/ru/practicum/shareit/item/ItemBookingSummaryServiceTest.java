@@ -0,0 +1,102 @@
+package ru.practicum.shareit.item;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+@DataJpaTest
+@Import(ItemBookingSummaryService.class)
+public class ItemBookingSummaryServiceTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ItemBookingSummaryService service;
+
+    @Autowired
+    private ItemBookingSummaryRepository repository;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    private User booker;
+    private Item item;
+    private Item emptyItem;
+    private Booking past;
+    private Booking future;
+
+    @BeforeEach
+    public void seed() {
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        item = entityManager.persist(makeItem(null, "Итем", "Описание", owner, true));
+        emptyItem = entityManager.persist(makeItem(null, "Итем2", "Описание2", owner, true));
+        past = entityManager.persist(makeBooking(null, now.minusDays(3), now.minusDays(2), item, booker, BookingStatus.APPROVED));
+        future = entityManager.persist(makeBooking(null, now.plusDays(2), now.plusDays(3), item, booker, BookingStatus.WAITING));
+        entityManager.flush();
+    }
+
+    @Test
+    public void shouldComputeAndStoreMissingSummaries() {
+        Long2ObjectMap<ItemBookingSummary> summaries = service.getByItemIds(List.of(item.getId(), emptyItem.getId()));
+        entityManager.clear();
+
+        assertThat(summaries.get(item.getId().longValue()))
+                .hasFieldOrPropertyWithValue("lastBookingId", past.getId())
+                .hasFieldOrPropertyWithValue("lastBookerId", booker.getId())
+                .hasFieldOrPropertyWithValue("nextBookingId", future.getId())
+                .hasFieldOrPropertyWithValue("validUntil", future.getStartDate());
+        assertThat(summaries.get(emptyItem.getId().longValue()))
+                .hasFieldOrPropertyWithValue("lastBookingId", null)
+                .hasFieldOrPropertyWithValue("nextBookingId", null)
+                .hasFieldOrPropertyWithValue("validUntil", null);
+        assertThat(repository.findById(item.getId()))
+                .isNotEmpty()
+                .get()
+                .hasFieldOrPropertyWithValue("nextBookingId", future.getId());
+    }
+
+    @Test
+    public void shouldRefreshOnWriteAndWhenOutdated() {
+        service.getByItemIds(List.of(item.getId()));
+        Booking sooner = entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(1).plusHours(1), item, booker, BookingStatus.WAITING));
+        entityManager.flush();
+
+        service.refresh(List.of(item.getId()));
+        entityManager.clear();
+        assertThat(service.getByItemIds(List.of(item.getId())).get(item.getId().longValue()))
+                .hasFieldOrPropertyWithValue("nextBookingId", sooner.getId());
+
+        ItemBookingSummary outdated = new ItemBookingSummary(item.getId());
+        outdated.setValidUntil(now.minusMinutes(1));
+        repository.upsertAll(List.of(outdated));
+        assertThat(service.getByItemIds(List.of(item.getId())).get(item.getId().longValue()))
+                .hasFieldOrPropertyWithValue("lastBookingId", past.getId())
+                .hasFieldOrPropertyWithValue("nextBookingId", sooner.getId());
+    }
+
+    @Test
+    public void shouldComputeOutdatedSummariesWithoutStoringThemOnPeek() {
+        Long2ObjectMap<ItemBookingSummary> summaries = service.peekByItemIds(List.of(item.getId()));
+        entityManager.clear();
+
+        assertThat(summaries.get(item.getId().longValue()))
+                .hasFieldOrPropertyWithValue("lastBookingId", past.getId())
+                .hasFieldOrPropertyWithValue("nextBookingId", future.getId());
+        assertThat(repository.findById(item.getId())).isEmpty();
+    }
+}
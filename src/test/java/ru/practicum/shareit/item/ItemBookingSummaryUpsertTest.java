@@ -0,0 +1,47 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * Выбор SQL для upsert по базе: H2 покрыт ItemBookingSummaryServiceTest, здесь — что PostgreSQL не получит MERGE.
+ */
+class ItemBookingSummaryUpsertTest {
+
+    @Test
+    void shouldUseInsertOnConflictForPostgres() {
+        assertThat(upsertSql("PostgreSQL"), startsWith("insert into item_booking_summary"));
+    }
+
+    @Test
+    void shouldUseMergeForH2() {
+        assertThat(upsertSql("H2"), startsWith("merge into item_booking_summary"));
+    }
+
+    private static String upsertSql(String database) {
+        JdbcOperations jdbcOperations = Mockito.mock(JdbcOperations.class);
+        Mockito.when(jdbcOperations.execute(Mockito.<ConnectionCallback<String>>any())).thenReturn(database);
+        NamedParameterJdbcTemplate jdbcTemplate = Mockito.mock(NamedParameterJdbcTemplate.class);
+        Mockito.when(jdbcTemplate.getJdbcOperations()).thenReturn(jdbcOperations);
+        ItemBookingSummaryRepositoryCustomImpl repository = new ItemBookingSummaryRepositoryCustomImpl(jdbcTemplate);
+
+        repository.upsertAll(List.of(new ItemBookingSummary(1L)));
+        repository.upsertAll(List.of(new ItemBookingSummary(2L)));
+
+        Mockito.verify(jdbcOperations, Mockito.times(1)).execute(Mockito.<ConnectionCallback<String>>any());
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).batchUpdate(sql.capture(), Mockito.any(SqlParameterSource[].class));
+        return sql.getValue();
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.item;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.practicum.shareit.ObjectMaker.*;
+
+/**
+ * Сравнивает раскладку бронирований по вещам владельца: прежний вложенный перебор
+ * вещей для каждого бронирования и слияние через хэш-индекс по примитивному id вещи.
+ * Запуск: main этого класса с тестовым classpath, surefire его не подхватывает.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemBookingsMergeBenchmark {
+
+    private static final int ITEMS = 10_000;
+    private static final int BOOKINGS = 50_000;
+
+    private List<Long> itemIds;
+    private List<Booking> lastBookings;
+    private List<Booking> nextBookings;
+    private List<ItemDto> itemDtos;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        Random random = new Random(42);
+        User owner = makeUser(1L, "Владелец", "owner@mail.ru");
+        User booker = makeUser(2L, "Букер", "booker@mail.ru");
+        List<Item> items = new ArrayList<>(ITEMS);
+        itemIds = new ArrayList<>(ITEMS);
+        for (long id = 1; id <= ITEMS; id++) {
+            items.add(makeItem(id, "Итем" + id, "Описание" + id, owner, true));
+            itemIds.add(id);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        lastBookings = new ArrayList<>(BOOKINGS / 2);
+        nextBookings = new ArrayList<>(BOOKINGS / 2);
+        for (long id = 1; id <= BOOKINGS; id++) {
+            Item item = items.get(random.nextInt(ITEMS));
+            boolean past = id % 2 == 0;
+            LocalDateTime start = past ? now.minusDays(id) : now.plusDays(id);
+            Booking booking = makeBooking(id, start, start.plusHours(1), item, booker, BookingStatus.APPROVED);
+            (past ? lastBookings : nextBookings).add(booking);
+        }
+        itemDtos = ItemMapper.toDtos(items);
+    }
+
+    @Benchmark
+    public List<ItemDto> nestedLoops() {
+        lastBookings.forEach(booking -> itemDtos.stream().filter(i -> Objects.equals(i.getId(), booking.getItem().getId()))
+                .forEach(i -> i.setLastBooking(ItemBookingDto.builder().id(booking.getId())
+                        .bookerId(booking.getBooker().getId())
+                        .build())
+                )
+        );
+        nextBookings.forEach(booking -> itemDtos.stream().filter(i -> Objects.equals(i.getId(), booking.getItem().getId()))
+                .forEach(i -> i.setNextBooking(ItemBookingDto.builder().id(booking.getId())
+                        .bookerId(booking.getBooker().getId())
+                        .build())
+                )
+        );
+        return itemDtos;
+    }
+
+    @Benchmark
+    public List<ItemDto> hashIndexedMerge() {
+        Long2ObjectMap<ItemBookingSummary> summaries = ItemBookingSummaryService.summarize(
+                itemIds, lastBookings, nextBookings, Collections.emptyList());
+        ItemServiceImpl.fillBookings(itemDtos, summaries);
+        return itemDtos;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemBookingsMergeBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
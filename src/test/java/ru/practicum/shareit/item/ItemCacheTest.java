@@ -0,0 +1,109 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSnapshot;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.*;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+class ItemCacheTest {
+
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+    private final AtomicLong nanos = new AtomicLong();
+    private final ItemCache cache = new ItemCache(itemRepository, meterRegistry, 10_000, Duration.ofMinutes(10), Runnable::run, nanos::get);
+
+    @Test
+    void shouldReadThroughOnceAndCountHitsAndMisses() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item(1L, "Дрель", 0L)));
+        when(itemRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThat(cache.get(1L).orElseThrow().getName(), equalTo("Дрель"));
+        assertThat(cache.get(1L).orElseThrow().getName(), equalTo("Дрель"));
+        assertThat(cache.get(2L).isPresent(), equalTo(false));
+
+        verify(itemRepository, times(1)).findById(1L);
+        assertThat(count("hit"), closeTo(1, 1e-9));
+        assertThat(count("miss"), closeTo(2, 1e-9));
+    }
+
+    @Test
+    void shouldLoadOnlyMissingSnapshotsInOneQuery() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item(1L, "Дрель", 0L)));
+        cache.get(1L);
+        when(itemRepository.findAllWithRequestByIdIn(List.of(2L, 3L)))
+                .thenReturn(List.of(item(2L, "Пила", 0L)));
+
+        Map<Long, ItemSnapshot> snapshots = cache.getAll(List.of(1L, 2L, 3L));
+
+        assertThat(snapshots.keySet(), equalTo(Set.of(1L, 2L)));
+        verify(itemRepository).findAllWithRequestByIdIn(List.of(2L, 3L));
+    }
+
+    @Test
+    void shouldKeepNewestVersion() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item(1L, "Дрель", 0L)));
+        cache.get(1L);
+
+        cache.put(item(1L, "Дрель ударная", 1L));
+        assertThat(cache.get(1L).orElseThrow().getName(), equalTo("Дрель ударная"));
+
+        // снимок, прочитанный до обновления, не перезаписывает новый
+        cache.put(item(1L, "Дрель", 0L));
+        assertThat(cache.get(1L).orElseThrow().getVersion(), equalTo(1L));
+
+        cache.invalidate(1L);
+        assertThat(cache.get(1L).orElseThrow().getVersion(), equalTo(0L));
+    }
+
+    @Test
+    void shouldEvictWhenMaxWeightExceeded() {
+        for (long id = 1; id <= 200; id++) {
+            cache.put(item(id, "Вещь " + id, 0L));
+        }
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", ItemCache.NAME).functionCounter().count(), greaterThan(0.0));
+        assertThat(meterRegistry.get("cache.size").tag("cache", ItemCache.NAME).gauge().value(), lessThan(200.0));
+    }
+
+    @Test
+    void shouldReloadSnapshotChangedElsewhereAfterExpiry() {
+        when(itemRepository.findById(1L))
+                .thenReturn(Optional.of(item(1L, "Дрель", 0L)))
+                .thenReturn(Optional.of(item(1L, "Дрель ударная", 1L)));
+        cache.get(1L);
+
+        nanos.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertThat(cache.get(1L).orElseThrow().getName(), equalTo("Дрель"));
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(cache.get(1L).orElseThrow().getName(), equalTo("Дрель ударная"));
+        verify(itemRepository, times(2)).findById(1L);
+    }
+
+    private Item item(Long id, String name, Long version) {
+        Item item = makeItem(id, name, "Описание", owner, true);
+        item.setVersion(version);
+        return item;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", ItemCache.NAME).tag("result", result).functionCounter().count();
+    }
+}
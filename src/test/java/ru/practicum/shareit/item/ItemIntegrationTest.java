@@ -6,18 +6,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.ShareItApp;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static ru.practicum.shareit.ObjectMaker.makeItemDto;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, classes = ShareItApp.class)
@@ -34,6 +39,12 @@ public class ItemIntegrationTest {
     @Autowired
     private ObjectMapper mapper;
 
+    @Autowired
+    private ItemSuggestIndex itemSuggestIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public ItemIntegrationTest() {
     }
 
@@ -85,7 +96,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto = makeItemDto("Отвертка", "Аккумуляторная отвертка", null);
         mvc.perform(post("/items")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -98,7 +109,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto = makeItemDto("", "Аккумуляторная отвертка", true);
         mvc.perform(post("/items")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -111,7 +122,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto = makeItemDto("Отвертка", null, true);
         mvc.perform(post("/items")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -153,7 +164,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto = makeItemDto("Дрель", "Простая дрель", false);
         mvc.perform(patch("/items/1")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -232,7 +243,7 @@ public class ItemIntegrationTest {
     public void itemGetFromOtherUserTest() throws Exception {
         ItemDto itemDto = makeItemDto(1L, "Аккумуляторная дрель", "Аккумуляторная дрель + аккумулятор", true);
         mvc.perform(get("/items/" + itemDto.getId())
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -247,7 +258,7 @@ public class ItemIntegrationTest {
     @Order(15)
     public void itemGetUnknownTest() throws Exception {
         mvc.perform(get("/items/100")
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -260,7 +271,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto = makeItemDto("Отвертка", "Аккумуляторная отвертка", true);
         mvc.perform(post("/items")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -277,7 +288,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto = makeItemDto("Клей Момент", "Тюбик суперклея марки Момент", true);
         mvc.perform(post("/items")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -311,7 +322,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto2 = makeItemDto(2L, "Отвертка", "Аккумуляторная отвертка", true);
         ItemDto itemDto3 = makeItemDto(3L, "Клей Момент", "Тюбик суперклея марки Момент", true);
         mvc.perform(get("/items/")
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -356,7 +367,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto = makeItemDto(null, null, false);
         mvc.perform(patch("/items/2")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -409,7 +420,7 @@ public class ItemIntegrationTest {
         ItemDto itemDto = makeItemDto(null, null, true);
         mvc.perform(patch("/items/2")
                         .content(mapper.writeValueAsString(itemDto))
-                        .header("X-Sharer-User-Id", 4)
+                        .header("X-Sharer-User-Id", 3)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -450,4 +461,190 @@ public class ItemIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(27)
+    public void itemGetPageForUser4Test() throws Exception {
+        mvc.perform(get("/items")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 3)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2L), Long.class));
+        mvc.perform(get("/items")
+                        .param("afterId", "2")
+                        .param("size", "2")
+                        .header("X-Sharer-User-Id", 3)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(3L), Long.class))
+                .andExpect(jsonPath("$[0].name", is("Клей Момент")));
+    }
+
+    @Test
+    @Order(28)
+    public void itemGetPageWrongSizeTest() throws Exception {
+        mvc.perform(get("/items")
+                        .param("size", "0")
+                        .header("X-Sharer-User-Id", 3)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(29)
+    public void itemExportForUser4Test() throws Exception {
+        MvcResult result = mvc.perform(get("/items")
+                        .param("stream", "true")
+                        .header("X-Sharer-User-Id", 3))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(mapper.readValue(lines[0], ItemDto.class).getId(), is(2L));
+        assertThat(mapper.readValue(lines[1], ItemDto.class).getName(), is("Клей Момент"));
+    }
+
+    @Test
+    @Order(30)
+    public void itemFullTextSearchTest() throws Exception {
+        mvc.perform(get("/items/search")
+                        .param("text", "аккумуляторный")
+                        .param("mode", "FULLTEXT")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(1L), Long.class))
+                .andExpect(jsonPath("$[1].id", is(2L), Long.class));
+        mvc.perform(get("/items/search")
+                        .param("text", "аккумуляторный")
+                        .param("mode", "FULLTEXT")
+                        .param("from", "1")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2L), Long.class));
+    }
+
+    @Test
+    @Order(31)
+    public void itemFuzzySearchTest() throws Exception {
+        mvc.perform(get("/items/search")
+                        .param("text", "акумуляторная дрлеь")
+                        .param("mode", "FUZZY")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1L), Long.class));
+    }
+
+    @Test
+    @Order(32)
+    public void itemSuggestTest() throws Exception {
+        // FST подсказок пересобирается в фоне, не ждём таймера
+        itemSuggestIndex.rebuildLookup();
+        mvc.perform(get("/items/suggest")
+                        .param("prefix", "АККУМ")
+                        .param("limit", "1")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].text", is("аккумуляторная")))
+                .andExpect(jsonPath("$[0].weight", is(3)));
+        mvc.perform(get("/items/suggest")
+                        .param("prefix", "дрель")
+                        .param("limit", "100")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(33)
+    public void itemSearchCacheMetricsTest() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(get("/items/search")
+                            .param("text", "Аккумуляторная  ДРЕЛЬ")
+                            .param("mode", "FULLTEXT")
+                            .header("X-Sharer-User-Id", 1)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id", is(1L), Long.class));
+        }
+        mvc.perform(get("/actuator/metrics/item.search.cache.hit.ratio"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThan(0.0)));
+    }
+
+    @Test
+    @Order(34)
+    public void itemSearchInWindowTest() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        mvc.perform(get("/items/search")
+                        .param("text", "аккумуляторная")
+                        .param("start", start.toString())
+                        .param("end", start.plusDays(1).toString())
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(1L), Long.class));
+        mvc.perform(get("/items/search")
+                        .param("text", "аккумуляторная")
+                        .param("start", start.toString())
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/items/search")
+                        .param("text", "аккумуляторная")
+                        .param("start", start.toString())
+                        .param("end", start.minusHours(1).toString())
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(35)
+    public void itemUpdateWithStaleCachedSnapshotTest() throws Exception {
+        String description = jdbcTemplate.queryForObject("select description from items where id = 1", String.class);
+        ItemDto itemDto = makeItemDto(null, null, true);
+        mvc.perform(patch("/items/1")
+                        .content(mapper.writeValueAsString(itemDto))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        // запись в обход сервиса: снимок вещи в кэше устаревает
+        jdbcTemplate.update("update items set version = version + 1 where id = 1");
+        Long staleVersion = jdbcTemplate.queryForObject("select version from items where id = 1", Long.class);
+
+        for (String text : List.of("Дрель после обновления в обход кэша", description)) {
+            itemDto = makeItemDto(null, text, null);
+            mvc.perform(patch("/items/1")
+                            .content(mapper.writeValueAsString(itemDto))
+                            .header("X-Sharer-User-Id", 1)
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(1L), Long.class))
+                    .andExpect(jsonPath("$.description", is(text)));
+        }
+        assertThat(jdbcTemplate.queryForObject("select version from items where id = 1", Long.class), is(staleVersion + 2));
+    }
+}
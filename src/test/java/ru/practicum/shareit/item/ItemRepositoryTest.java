@@ -0,0 +1,145 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+@DataJpaTest
+public class ItemRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ItemRepository repository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Test
+    public void shouldFindItemsFreeInWindow() {
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item approved = entityManager.persist(makeItem(null, "Дрель", "Занята", owner, true));
+        Item waiting = entityManager.persist(makeItem(null, "Пила", "Ждёт решения", owner, true));
+        Item rejected = entityManager.persist(makeItem(null, "Клей", "Отклонена", owner, true));
+        Item touching = entityManager.persist(makeItem(null, "Молоток", "Кончается в начале окна", owner, true));
+        Item outside = entityManager.persist(makeItem(null, "Рубанок", "До окна", owner, true));
+        Item never = entityManager.persist(makeItem(null, "Отвертка", "Без бронирований", owner, true));
+        LocalDateTime start = now.plusDays(10);
+        LocalDateTime end = now.plusDays(12);
+        entityManager.persist(makeBooking(null, start.minusDays(1), start.plusDays(1), approved, booker, BookingStatus.APPROVED));
+        entityManager.persist(makeBooking(null, start.plusHours(1), end.plusDays(1), waiting, booker, BookingStatus.WAITING));
+        entityManager.persist(makeBooking(null, start, end, rejected, booker, BookingStatus.REJECTED));
+        entityManager.persist(makeBooking(null, start.minusDays(1), start, touching, booker, BookingStatus.APPROVED));
+        entityManager.persist(makeBooking(null, start.minusDays(3), start.minusDays(2), outside, booker, BookingStatus.APPROVED));
+
+        List<Long> ids = List.of(approved.getId(), waiting.getId(), rejected.getId(),
+                touching.getId(), outside.getId(), never.getId());
+
+        assertThat(repository.findFreeIds(ids, start, end))
+                .containsExactlyInAnyOrder(rejected.getId(), outside.getId(), never.getId());
+        assertThat(repository.findFreeIds(List.of(never.getId()), start, end)).containsExactly(never.getId());
+    }
+
+    @Test
+    public void shouldLockItemsInIdOrder() {
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        Item first = entityManager.persist(makeItem(null, "Дрель", "Первая", owner, true));
+        Item second = entityManager.persist(makeItem(null, "Пила", "Вторая", owner, true));
+        entityManager.flush();
+
+        assertThat(repository.lockAllById(List.of(second.getId(), first.getId(), Long.MAX_VALUE)))
+                .containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    public void shouldLoadItemDetailsInOneQuery() {
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Дрель", "Аккумуляторная дрель", owner, true));
+        Booking older = entityManager.persist(makeBooking(null, now.minusDays(5), now.minusDays(4), item, booker, BookingStatus.APPROVED));
+        Booking last = entityManager.persist(makeBooking(null, now.minusDays(3), now.minusDays(2), item, booker, BookingStatus.APPROVED));
+        Booking next = entityManager.persist(makeBooking(null, now.plusDays(1), now.plusDays(2), item, owner, BookingStatus.WAITING));
+        entityManager.persist(makeBooking(null, now.plusDays(3), now.plusDays(4), item, booker, BookingStatus.WAITING));
+        Comment first = entityManager.persist(makeComment("Отличная дрель", item, booker));
+        Comment second = entityManager.persist(makeComment("Шумная", item, booker));
+        entityManager.flush();
+
+        ItemDto forOwner = repository.findDetailsById(item.getId(), owner.getId(), now).orElseThrow();
+        assertThat(forOwner)
+                .hasFieldOrPropertyWithValue("id", item.getId())
+                .hasFieldOrPropertyWithValue("name", "Дрель")
+                .hasFieldOrPropertyWithValue("description", "Аккумуляторная дрель")
+                .hasFieldOrPropertyWithValue("available", true)
+                .hasFieldOrPropertyWithValue("owner", owner.getId())
+                .hasFieldOrPropertyWithValue("requestId", null);
+        assertThat(forOwner.getLastBooking()).isEqualTo(ItemBookingDto.builder().id(last.getId()).bookerId(booker.getId()).build());
+        assertThat(forOwner.getNextBooking()).isEqualTo(ItemBookingDto.builder().id(next.getId()).bookerId(owner.getId()).build());
+        assertThat(forOwner.getComments())
+                .extracting(CommentDto::getId, CommentDto::getText, CommentDto::getAuthorName)
+                .containsExactly(tuple(first.getId(), "Отличная дрель", "Иван"), tuple(second.getId(), "Шумная", "Иван"));
+        assertThat(older.getId()).isNotEqualTo(forOwner.getLastBooking().getId());
+
+        ItemDto forBooker = repository.findDetailsById(item.getId(), booker.getId(), now).orElseThrow();
+        assertThat(forBooker.getLastBooking()).isNull();
+        assertThat(forBooker.getNextBooking()).isNull();
+        assertThat(forBooker.getComments()).hasSize(2);
+
+        assertThat(repository.findDetailsById(item.getId() + 100, owner.getId(), now)).isEmpty();
+    }
+
+    /**
+     * Единственный запрос карточки вещи заменил отдельные запросы последнего и следующего бронирования
+     * и комментариев, поэтому его план проверяется на заполненных таблицах
+     */
+    @Test
+    public void shouldLoadItemDetailsWithoutTableScans() {
+        User owner = entityManager.persist(makeUser(null, "Пётр", "ivanov@mail.ru"));
+        User booker = entityManager.persist(makeUser(null, "Иван", "petrov@mail.ru"));
+        Item item = entityManager.persist(makeItem(null, "Дрель", "Без комментариев", owner, true));
+        for (int i = 0; i < 100; i++) {
+            Item other = entityManager.persist(makeItem(null, "Итем" + i, "Описание" + i, owner, true));
+            for (int j = 0; j < 10; j++) {
+                LocalDateTime start = now.plusHours(10L * j - 50);
+                entityManager.persist(makeBooking(null, start, start.plusHours(1), other, booker, BookingStatus.APPROVED));
+            }
+            entityManager.persist(makeComment("Комментарий" + i, other, booker));
+        }
+        entityManager.flush();
+
+        ItemDto itemDto = repository.findDetailsById(item.getId(), owner.getId(), now).orElseThrow();
+        assertThat(itemDto.getComments()).isEmpty();
+        assertThat(itemDto.getLastBooking()).isNull();
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("itemId", item.getId())
+                .addValue("userId", owner.getId())
+                .addValue("now", now);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + ItemRepositoryCustomImpl.DETAILS, params, String.class);
+        assertThat(plan)
+                .doesNotContain("BOOKINGS.tableScan")
+                .doesNotContain("ITEMS.tableScan")
+                .doesNotContain("COMMENTS.tableScan");
+    }
+}
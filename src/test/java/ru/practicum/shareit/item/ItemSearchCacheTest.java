@@ -0,0 +1,182 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchMode;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+class ItemSearchCacheTest {
+
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+    private final User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger searches = new AtomicInteger();
+    private ItemSearchIndex searchIndex;
+    private ItemSubstringIndex substringIndex;
+    private ItemSearchCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        searchIndex = new ItemSearchIndex(itemRepository);
+        substringIndex = new ItemSubstringIndex(itemRepository);
+        cache = new ItemSearchCache(searchIndex, meterRegistry);
+        put(null, makeItem(1L, "Дрель", "Аккумуляторная дрель", owner, true));
+        put(null, makeItem(2L, "Отвертка", "Аккумуляторная отвертка", owner, true));
+        put(null, makeItem(3L, "Клей", "Тюбик суперклея", owner, true));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        searchIndex.close();
+    }
+
+    @Test
+    void shouldServeRepeatedQueriesFromCacheByNormalizedKey() {
+        assertThat(search("  Аккумуляторная   ДРЕЛЬ ", ItemSearchMode.FULLTEXT), contains(1L));
+        assertThat(search("аккумуляторная дрель", ItemSearchMode.FULLTEXT), contains(1L));
+        assertThat(search("АККУМ", ItemSearchMode.SUBSTRING), contains(1L, 2L));
+        assertThat(search("аккум", ItemSearchMode.SUBSTRING), contains(1L, 2L));
+        assertThat(searches.get(), equalTo(2));
+        assertThat(meterRegistry.get("item.search.cache.hit.ratio").gauge().value(), closeTo(0.5, 1e-9));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", ItemSearchCache.NAME).tag("result", "hit")
+                .functionCounter().count(), closeTo(2, 1e-9));
+    }
+
+    @Test
+    void shouldInvalidateOnlyAffectedQueries() {
+        search("клей", ItemSearchMode.SUBSTRING);
+        search("дрель", ItemSearchMode.FULLTEXT);
+        search("клей", ItemSearchMode.FULLTEXT);
+        searches.set(0);
+
+        Item drill = makeItem(1L, "Дрель", "Аккумуляторная дрель", owner, true);
+        put(drill, makeItem(1L, "Дрель", "Дрель и клей", owner, true));
+
+        assertThat(search("клей", ItemSearchMode.SUBSTRING), contains(1L));
+        assertThat(search("клей", ItemSearchMode.FULLTEXT), contains(3L, 1L));
+        assertThat(search("дрель", ItemSearchMode.FULLTEXT), contains(1L));
+        // под "клей" подходит новая версия вещи, под "дрель" — обе, пересчитаны все три запроса
+        assertThat(searches.get(), equalTo(3));
+
+        searches.set(0);
+        put(makeItem(3L, "Клей", "Тюбик суперклея", owner, true), makeItem(3L, "Клей", "Тюбик суперклея", owner, true));
+        search("клей", ItemSearchMode.SUBSTRING);
+        search("дрель", ItemSearchMode.FULLTEXT);
+        // изменение вещи не трогает страницы, под которые она не подходит
+        assertThat(searches.get(), equalTo(0));
+
+        searches.set(0);
+        put(null, makeItem(4L, "Молоток", "Молоток слесарный", owner, true));
+        search("клей", ItemSearchMode.SUBSTRING);
+        search("дрель", ItemSearchMode.FULLTEXT);
+        // новая вещь меняет статистику BM25, поэтому ранжированная выдача пересчитывается, а подстрока нет
+        assertThat(searches.get(), equalTo(1));
+    }
+
+    @Test
+    void shouldInvalidateOnAvailabilityToggle() {
+        assertThat(search("отвертка", ItemSearchMode.FUZZY), contains(2L));
+        assertThat(search("суперклея", ItemSearchMode.SUBSTRING), contains(3L));
+
+        put(makeItem(2L, "Отвертка", "Аккумуляторная отвертка", owner, true),
+                makeItem(2L, "Отвертка", "Аккумуляторная отвертка", owner, false));
+        put(makeItem(3L, "Клей", "Тюбик суперклея", owner, true),
+                makeItem(3L, "Клей", "Тюбик суперклея", owner, false));
+
+        assertThat(search("отвертка", ItemSearchMode.FUZZY), empty());
+        assertThat(search("суперклея", ItemSearchMode.SUBSTRING), empty());
+    }
+
+    @Test
+    void shouldInvalidateFuzzyQueriesWithinEditDistance() {
+        assertThat(search("рубанок", ItemSearchMode.FUZZY), empty());
+        put(null, makeItem(5L, "Рубанок", "Столярный", owner, true));
+        assertThat(search("рубанок", ItemSearchMode.FUZZY), contains(5L));
+        put(null, makeItem(6L, "Рубонок", "Опечатка в названии", owner, true));
+        assertThat(search("рубанок", ItemSearchMode.FUZZY).size(), equalTo(2));
+    }
+
+    @Test
+    void shouldInvalidateQueriesCheckedOnEveryWrite() {
+        assertThat(search("дрель -клей", ItemSearchMode.FULLTEXT), contains(1L));
+        assertThat(search("ея", ItemSearchMode.SUBSTRING), contains(3L));
+        assertThat(search("дрил", ItemSearchMode.FUZZY), contains(1L));
+        searches.set(0);
+
+        Item hammer = makeItem(7L, "Молоток", "Молоток слесарный", owner, true);
+        put(null, hammer);
+        search("дрель -клей", ItemSearchMode.FULLTEXT);
+        search("ея", ItemSearchMode.SUBSTRING);
+        search("дрил", ItemSearchMode.FUZZY);
+        // создание сбрасывает всю ранжированную выдачу, короткая подстрока — только подходящей вещью
+        assertThat(searches.get(), equalTo(2));
+
+        searches.set(0);
+        put(hammer, makeItem(7L, "Молоток", "Молоток столярный", owner, true));
+        search("дрель -клей", ItemSearchMode.FULLTEXT);
+        search("ея", ItemSearchMode.SUBSTRING);
+        search("дрил", ItemSearchMode.FUZZY);
+        // запрос с операторами сбрасывается любой записью, короткая подстрока и FUZZY — только подходящей
+        assertThat(searches.get(), equalTo(1));
+
+        put(null, makeItem(8L, "Дрель", "Ударная, для клея", owner, true));
+        assertThat(search("ея", ItemSearchMode.SUBSTRING), contains(3L, 8L));
+        assertThat(search("дрил", ItemSearchMode.FUZZY).size(), equalTo(2));
+    }
+
+    @Test
+    void shouldInvalidatePageReplacedByConcurrentLoad() {
+        List<Long> first = cache.get("клей", ItemSearchMode.FULLTEXT, 0, 10, () -> List.of(3L));
+        List<Long> second = cache.get("клей", ItemSearchMode.FULLTEXT, 0, 10, () -> {
+            throw new AssertionError("страница уже в кэше");
+        });
+        assertThat(second, equalTo(first));
+
+        cache.invalidate(null, makeItem(3L, "Клей", "Тюбик суперклея", owner, true));
+        assertThat(search("клей", ItemSearchMode.FULLTEXT), contains(3L));
+        assertThat(searches.get(), equalTo(1));
+    }
+
+    @Test
+    void shouldNotCachePageComputedBeforeConcurrentWrite() {
+        Item glue = makeItem(3L, "Клей", "Тюбик суперклея", owner, true);
+        List<Long> stale = cache.get("суперклея", ItemSearchMode.SUBSTRING, 0, 10, () -> {
+            List<Long> ids = substringIndex.search("суперклея", 0, 10);
+            // запись вещи между поиском и сохранением страницы в кэш
+            put(glue, makeItem(3L, "Клей", "Тюбик суперклея", owner, false));
+            return ids;
+        });
+        assertThat(stale, contains(3L));
+        assertThat(search("суперклея", ItemSearchMode.SUBSTRING), empty());
+    }
+
+    private List<Long> search(String text, ItemSearchMode mode) {
+        return cache.get(text, mode, 0, 10, () -> {
+            searches.incrementAndGet();
+            return mode == ItemSearchMode.SUBSTRING
+                    ? substringIndex.search(text, 0, 10)
+                    : searchIndex.search(text, mode, 0, 10);
+        });
+    }
+
+    private void put(Item previous, Item current) {
+        searchIndex.put(current);
+        substringIndex.put(current);
+        cache.invalidate(previous, current);
+    }
+}
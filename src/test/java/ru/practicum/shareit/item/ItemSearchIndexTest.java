@@ -0,0 +1,81 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.model.ItemSearchMode;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+class ItemSearchIndexTest {
+
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+    private final User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new ItemSearchIndex(itemRepository);
+        index.put(makeItem(1L, "Клей", "Клей для дрели и шуруповёрта", owner, true));
+        index.put(makeItem(2L, "Дрель", "Ударная дрель", owner, true));
+        index.put(makeItem(3L, "Дрель старая", "Не работает", owner, false));
+        index.put(makeItem(4L, "Отвертка", "Крестовая отвертка", owner, true));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void shouldRankNameMatchesHigherAndSkipUnavailable() {
+        assertThat(index.search("дрель", ItemSearchMode.FULLTEXT, 0, 10), contains(2L, 1L));
+    }
+
+    @Test
+    void shouldRequireAllWords() {
+        assertThat(index.search("ударная дрель", ItemSearchMode.FULLTEXT, 0, 10), contains(2L));
+        assertThat(index.search("ударная отвертка", ItemSearchMode.FULLTEXT, 0, 10), empty());
+    }
+
+    @Test
+    void shouldTolerateTyposInFuzzyMode() {
+        assertThat(index.search("дерль", ItemSearchMode.FULLTEXT, 0, 10), empty());
+        assertThat(index.search("дерль", ItemSearchMode.FUZZY, 0, 10), contains(2L, 1L));
+        assertThat(index.search("дрел", ItemSearchMode.FUZZY, 0, 10), contains(2L, 1L));
+        assertThat(index.search("отвёртка крестовя", ItemSearchMode.FUZZY, 0, 10), contains(4L));
+        assertThat(index.search("пила", ItemSearchMode.FUZZY, 0, 10), empty());
+    }
+
+    @Test
+    void shouldPaginate() {
+        assertThat(index.search("дрели", ItemSearchMode.FULLTEXT, 1, 1), contains(1L));
+        assertThat(index.search("дрели", ItemSearchMode.FULLTEXT, 2, 1), empty());
+    }
+
+    @Test
+    void shouldReplaceUpdatedItem() {
+        index.put(makeItem(4L, "Отвертка", "Отвертка, подходит к дрели", owner, true));
+        assertThat(index.search("дрель", ItemSearchMode.FULLTEXT, 0, 10), contains(2L, 1L, 4L));
+        index.put(makeItem(2L, "Дрель", "Ударная дрель", owner, false));
+        assertThat(index.search("дрель", ItemSearchMode.FULLTEXT, 0, 10), contains(1L, 4L));
+    }
+
+    @Test
+    void shouldLoadAllItemsOnRebuild() throws IOException {
+        index.close();
+        index = new ItemSearchIndex(itemRepository);
+        Mockito.when(itemRepository.findPageAfter(Mockito.eq(0L), Mockito.any()))
+                .thenReturn(List.of(makeItem(5L, "Пила", "Пила по дереву", owner, true)));
+        index.rebuild();
+        assertThat(index.search("пилу", ItemSearchMode.FULLTEXT, 0, 10), contains(5L));
+    }
+}
@@ -1,21 +1,28 @@
 package ru.practicum.shareit.item;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchMode;
+import ru.practicum.shareit.item.model.ItemSnapshot;
+import ru.practicum.shareit.user.UserExistenceCache;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.Collections;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -38,6 +45,27 @@ class ItemServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private ItemBookingSummaryService itemBookingSummaryService;
+
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    private ItemSubstringIndex itemSubstringIndex;
+
+    @Mock
+    private ItemSuggestIndex itemSuggestIndex;
+
+    @Mock
+    private ItemSearchCache itemSearchCache;
+
+    @Mock
+    private ItemCache itemCache;
+
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
     @InjectMocks
     private ItemServiceImpl service;
 
@@ -52,10 +80,8 @@ class ItemServiceTest {
 
         when(repository.findAllByOwnerIdOrderById(user.getId()))
                 .thenReturn(List.of(item1, item2));
-        when(bookingRepository.findLastItemBookings(anyList(), any()))
-                .thenReturn(Collections.emptyList());
-        when(bookingRepository.findNextItemBookings(anyList(), any()))
-                .thenReturn(Collections.emptyList());
+        when(itemBookingSummaryService.getByItemIds(List.of(item1.getId(), item2.getId())))
+                .thenReturn(new Long2ObjectOpenHashMap<>());
 
         // when
         List<ItemDto> itemList = service.getAllByUserId(user.getId());
@@ -65,6 +91,62 @@ class ItemServiceTest {
         assertThat(itemList.size(), equalTo(2));
     }
 
+    @Test
+    @DisplayName("JUnit test for getPage Item method")
+    void givenAfterId_whenGetPageItem_thenReturnItemsAfterId() {
+        //given
+        User user = makeUser(1L, "Пётр", "ivanov@mail.ru");
+
+        Item item = makeItem(3L, "Итем","Описание", user, true);
+
+        when(repository.findPageByOwnerId(user.getId(), 2L, PageRequest.of(0, 1)))
+                .thenReturn(List.of(item));
+        when(itemBookingSummaryService.getByItemIds(List.of(item.getId())))
+                .thenReturn(new Long2ObjectOpenHashMap<>());
+
+        // when
+        List<ItemDto> itemList = service.getPageByUserId(user.getId(), 2L, 1);
+
+        // then
+        assertThat(itemList.size(), equalTo(1));
+        assertThat(itemList.get(0).getId(), equalTo(item.getId()));
+    }
+
+    @Test
+    @DisplayName("JUnit test for searchFree Item method")
+    void givenBookedCandidates_whenSearchFreeItem_thenPageOverFreeItemsAcrossBatches() {
+        //given
+        User user = makeUser(1L, "Пётр", "ivanov@mail.ru");
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = start.plusDays(1);
+        List<Long> firstBatch = LongStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+        List<Long> secondBatch = LongStream.rangeClosed(1001, 1100).boxed().collect(Collectors.toList());
+
+        when(itemSubstringIndex.search("дрель", 0L, 1000))
+                .thenReturn(firstBatch);
+        when(itemSubstringIndex.search("дрель", 1000L, 1000))
+                .thenReturn(secondBatch);
+        // в первой пачке свободны только три вещи, во второй — все
+        when(repository.findFreeIds(firstBatch, start, end))
+                .thenReturn(List.of(10L, 20L, 30L));
+        when(repository.findFreeIds(secondBatch, start, end))
+                .thenReturn(secondBatch);
+        when(itemCache.getAll(List.of(1002L, 1003L)))
+                .thenReturn(Map.of(
+                        1003L, ItemSnapshot.of(makeItem(1003L, "Дрель", "Дрель", user, true)),
+                        1002L, ItemSnapshot.of(makeItem(1002L, "Дрель", "Дрель", user, true))
+                ));
+
+        // when
+        List<ItemDto> itemList = service.searchFreeByName("дрель", ItemSearchMode.SUBSTRING, start, end, 4, 2);
+
+        // then
+        assertThat(itemList.size(), equalTo(2));
+        assertThat(itemList.get(0).getId(), equalTo(1002L));
+        assertThat(itemList.get(1).getId(), equalTo(1003L));
+        verifyNoInteractions(itemSearchCache);
+    }
+
     @Test
     @DisplayName("JUnit test for create Item method")
     void givenItemDtoObject_whenSaveItemDto_thenReturnItemObject() {
@@ -73,8 +155,10 @@ class ItemServiceTest {
         ItemDto itemDto = makeItemDto(1, "Итем","Описание", user.getId(), true);
         Item item = makeItem(1L, "Итем","Описание", user, true);
 
-        when(userRepository.findById(user.getId()))
-                .thenReturn(Optional.of(user));
+        when(userExistenceCache.exists(user.getId()))
+                .thenReturn(true);
+        when(userRepository.getReferenceById(user.getId()))
+                .thenReturn(user);
         doNothing()
                 .when(validation)
                 .validateCreation(itemDto);
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+class ItemSubstringIndexTest {
+
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+    private final User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+    private ItemSubstringIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSubstringIndex(itemRepository);
+        index.put(makeItem(1L, "Дрель", "Аккумуляторная дрель + аккумулятор", owner, true));
+        index.put(makeItem(2L, "Отвертка", "Аккумуляторная отвертка", owner, true));
+        index.put(makeItem(3L, "Клей", "Тюбик суперклея марки Момент", owner, false));
+    }
+
+    @Test
+    void shouldFindSubstringIgnoringCase() {
+        assertThat(index.search("аккУМУляторная", 0, 10), contains(1L, 2L));
+        assertThat(index.search("дРелЬ", 0, 10), contains(1L));
+        assertThat(index.search("оТверТ", 0, 10), contains(2L));
+    }
+
+    @Test
+    void shouldCheckCandidatesAgainstDescription() {
+        // все триграммы запроса есть в описании, но не подряд
+        index.put(makeItem(4L, "Пила", "абвгд вгдабв", owner, true));
+        assertThat(index.search("абвгдаб", 0, 10), empty());
+        assertThat(index.search("гдабв", 0, 10), contains(4L));
+    }
+
+    @Test
+    void shouldSearchShortQueriesAndSkipUnavailable() {
+        assertThat(index.search("+", 0, 10), contains(1L));
+        assertThat(index.search("мо", 0, 10), empty());
+    }
+
+    @Test
+    void shouldPaginateById() {
+        assertThat(index.search("аккумулятор", 1, 1), contains(2L));
+        assertThat(index.search("аккумулятор", 2, 1), empty());
+    }
+
+    @Test
+    void shouldReindexUpdatedItem() {
+        index.put(makeItem(1L, "Дрель", "Ударная дрель", owner, true));
+        index.put(makeItem(3L, "Клей", "Тюбик суперклея марки Момент", owner, true));
+        assertThat(index.search("аккумулятор", 0, 10), contains(2L));
+        assertThat(index.search("ударная", 0, 10), contains(1L));
+        assertThat(index.search("момент", 0, 10), contains(3L));
+    }
+
+    @Test
+    void shouldMatchContainsOnRandomDescriptions() {
+        Random random = new Random(7);
+        String alphabet = "абвгАБВ ";
+        List<Item> items = new ArrayList<>();
+        for (long id = 10; id < 500; id++) {
+            Item item = makeItem(id, "Итем", randomText(random, alphabet, 1 + random.nextInt(30)), owner, random.nextBoolean());
+            items.add(item);
+            index.put(item);
+        }
+        for (int i = 0; i < 300; i++) {
+            String query = randomText(random, alphabet, 1 + random.nextInt(5));
+            String lower = query.toLowerCase(Locale.ROOT);
+            List<Long> expected = items.stream()
+                    .filter(Item::getIsAvailable)
+                    .filter(item -> item.getDescription().toLowerCase(Locale.ROOT).contains(lower))
+                    .map(Item::getId)
+                    .collect(Collectors.toList());
+            List<Long> actual = index.search(query, 0, items.size() + 3).stream()
+                    .filter(id -> id >= 10)
+                    .collect(Collectors.toList());
+            assertThat(query, actual, equalTo(expected));
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
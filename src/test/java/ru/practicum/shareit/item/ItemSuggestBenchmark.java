@@ -0,0 +1,88 @@
+package ru.practicum.shareit.item;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static ru.practicum.shareit.ObjectMaker.*;
+
+/**
+ * Распределение времени подсказки по префиксу (p50/p99 в отчёте SampleTime) на 100k вещей.
+ * Запуск: main этого класса с тестовым classpath, surefire его не подхватывает.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSuggestBenchmark {
+
+    private static final int ITEMS = 100_000;
+    private static final String ALPHABET = "абвгдеклмнопрст";
+
+    private ItemSuggestIndex index;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        Random random = new Random(42);
+        User owner = makeUser(1L, "Владелец", "owner@mail.ru");
+        index = new ItemSuggestIndex(Mockito.mock(ItemRepository.class));
+        for (long id = 1; id <= ITEMS; id++) {
+            index.put(makeItem(id, word(random, 4, 8) + " " + word(random, 4, 8),
+                    word(random, 3, 10) + " " + word(random, 3, 10) + " " + word(random, 3, 10), owner, true));
+        }
+        index.rebuildLookup();
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = word(random, 1, 4);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        index.close();
+    }
+
+    @Benchmark
+    public List<ItemSuggestionDto> suggest() {
+        return index.suggest(prefixes[next++ & (prefixes.length - 1)], 10);
+    }
+
+    private static String word(Random random, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return word.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemSuggestBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
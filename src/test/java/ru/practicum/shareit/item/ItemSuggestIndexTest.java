@@ -0,0 +1,78 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static ru.practicum.shareit.ObjectMaker.*;
+
+class ItemSuggestIndexTest {
+
+    private final ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+    private final User owner = makeUser(1L, "Пётр", "ivanov@mail.ru");
+    private ItemSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSuggestIndex(itemRepository);
+        index.put(makeItem(1L, "Дрель ударная", "Дрель для бетона", owner, true));
+        index.put(makeItem(2L, "Дрель", "Аккумуляторная дрель", owner, true));
+        index.put(makeItem(3L, "Доска", "Разделочная доска для кухни", owner, true));
+        index.put(makeItem(4L, "Дрезина", "Не работает", owner, false));
+        index.rebuildLookup();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    void shouldSuggestByPopularity() {
+        assertThat(index.suggest("Д", 1), contains(new ItemSuggestionDto("дрель", 4)));
+        assertThat(index.suggest("др", 10), contains(
+                new ItemSuggestionDto("дрель", 4),
+                new ItemSuggestionDto("дрель ударная", 2)
+        ));
+        assertThat(index.suggest("раз", 10), contains(new ItemSuggestionDto("разделочная", 1)));
+    }
+
+    @Test
+    void shouldSkipUnavailableItems() {
+        assertThat(index.suggest("дрез", 10), empty());
+        assertThat(index.suggest("не", 10), empty());
+    }
+
+    @Test
+    void shouldUpdateWeightsIncrementally() {
+        index.put(makeItem(2L, "Рубанок", "Рубанок по дереву", owner, true));
+        index.put(makeItem(4L, "Дрезина", "Ручная дрезина", owner, true));
+        index.rebuildLookup();
+        assertThat(index.suggest("дре", 10), containsInAnyOrder(
+                new ItemSuggestionDto("дрезина", 2),
+                new ItemSuggestionDto("дрель", 2),
+                new ItemSuggestionDto("дрель ударная", 2)
+        ));
+        assertThat(index.suggest("аккум", 10), empty());
+        assertThat(index.suggest("руб", 1), contains(new ItemSuggestionDto("рубанок", 2)));
+    }
+
+    @Test
+    void shouldLoadAllItemsOnRebuild() {
+        ItemSuggestIndex loaded = new ItemSuggestIndex(itemRepository);
+        Mockito.when(itemRepository.findPageAfter(Mockito.eq(0L), Mockito.any()))
+                .thenReturn(List.of(makeItem(5L, "Пила", "Пила по дереву", owner, true)));
+        loaded.rebuild();
+        assertThat(loaded.suggest("пи", 10), contains(new ItemSuggestionDto("пила", 2)));
+        loaded.close();
+    }
+}
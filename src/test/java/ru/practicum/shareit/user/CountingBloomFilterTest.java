@@ -0,0 +1,78 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class CountingBloomFilterTest {
+
+    private static final int CAPACITY = 10_000;
+
+    @Test
+    void shouldNeverForgetAddedKeysAndKeepFalsePositivesNearRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(CAPACITY, 0.01);
+        for (long id = 1; id <= CAPACITY; id++) {
+            filter.add(id);
+        }
+        for (long id = 1; id <= CAPACITY; id++) {
+            assertThat(filter.mightContain(id), is(true));
+        }
+        int falsePositives = 0;
+        for (long id = CAPACITY + 1; id <= 2 * CAPACITY; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives, lessThan(CAPACITY / 50));
+    }
+
+    @Test
+    void shouldForgetRemovedKeysOnly() {
+        CountingBloomFilter filter = new CountingBloomFilter(CAPACITY, 0.01);
+        for (long id = 1; id <= CAPACITY; id++) {
+            filter.add(id);
+        }
+        for (long id = 1; id <= CAPACITY; id += 2) {
+            filter.remove(id);
+        }
+        int stillThere = 0;
+        for (long id = 1; id <= CAPACITY; id++) {
+            if (id % 2 == 0) {
+                assertThat(filter.mightContain(id), is(true));
+            } else if (filter.mightContain(id)) {
+                stillThere++;
+            }
+        }
+        assertThat(stillThere, lessThan(CAPACITY / 100));
+    }
+
+    @Test
+    void shouldKeepSaturatedCountersAfterRemovals() {
+        CountingBloomFilter filter = new CountingBloomFilter(1, 0.5);
+        for (int i = 0; i < 100; i++) {
+            filter.add(42);
+        }
+        for (int i = 0; i < 99; i++) {
+            filter.remove(42);
+        }
+        assertThat(filter.mightContain(42), is(true));
+    }
+
+    @Test
+    void shouldHashStringsIntoKeys() {
+        CountingBloomFilter filter = new CountingBloomFilter(CAPACITY, 0.01);
+        Random random = new Random(42);
+        String[] emails = new String[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            emails[i] = "user" + random.nextInt() + "@mail.ru";
+            filter.add(CountingBloomFilter.key(emails[i]));
+        }
+        for (String email : emails) {
+            assertThat(filter.mightContain(CountingBloomFilter.key(email)), is(true));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.user;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Пропускная способность проверки почты: String.matches (как было), заранее скомпилированный Pattern
+ * и EmailValidator. Типичные адреса берутся по кругу, худший случай — длинный домен из двухбуквенных меток
+ * с цифрой в конце: выражение откатывается по каждой метке, а валидатор проходит строку один раз.
+ * Запуск: main этого класса с тестовым classpath, surefire его не подхватывает.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailValidatorBenchmark {
+
+    private static final Pattern PATTERN = Pattern.compile(EmailValidator.REGEX);
+    private static final String[] TYPICAL = {
+            "user@user.com",
+            "ivan.petrov@mail.ru",
+            "first.last_name-1@mail-server.co.uk",
+            "not-an-email.ru",
+            "user@mail.r1",
+            "a.very.long.local.part.with.many.labels@example.org",
+            "user@-mail.ru",
+            "owner42@yandex.ru"
+    };
+
+    private String worst;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        worst = "user@bb" + ".aa".repeat(200) + ".1";
+    }
+
+    @Benchmark
+    public boolean typicalStringMatches() {
+        return typical().matches(EmailValidator.REGEX);
+    }
+
+    @Benchmark
+    public boolean typicalPattern() {
+        return PATTERN.matcher(typical()).matches();
+    }
+
+    @Benchmark
+    public boolean typicalValidator() {
+        return EmailValidator.isValid(typical());
+    }
+
+    @Benchmark
+    public boolean worstStringMatches() {
+        return worst.matches(EmailValidator.REGEX);
+    }
+
+    @Benchmark
+    public boolean worstPattern() {
+        return PATTERN.matcher(worst).matches();
+    }
+
+    @Benchmark
+    public boolean worstValidator() {
+        return EmailValidator.isValid(worst);
+    }
+
+    private String typical() {
+        return TYPICAL[next++ & (TYPICAL.length - 1)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EmailValidatorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
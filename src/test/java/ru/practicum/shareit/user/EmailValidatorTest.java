@@ -0,0 +1,129 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+class EmailValidatorTest {
+
+    private static final Pattern REFERENCE = Pattern.compile(EmailValidator.REGEX);
+    // суррогатная пара и её половины по отдельности: [^-] в выражении совпадает с целым символом Unicode
+    private static final String[] ALPHABET = {
+        "a", "Z", "0", "9", "_", "-", ".", "@", "@", ".", ".", "я", " ", "\n", "😀", "😀", "\uD83D", "\uDE00"
+    };
+    private static final int CASES = 200_000;
+
+    @Test
+    void shouldAcceptValidEmails() {
+        assertThat(EmailValidator.isValid("user@user.com"), is(true));
+        assertThat(EmailValidator.isValid("first.last_name-1@mail-server.co.uk"), is(true));
+        assertThat(EmailValidator.isValid("a".repeat(64) + "@mail.ru"), is(true));
+        assertThat(EmailValidator.isValid("a@.b.cc"), is(true));
+        assertThat(EmailValidator.isValid("a@яb.cc"), is(true));
+        assertThat(EmailValidator.isValid("a@😀b.com"), is(true));
+    }
+
+    @Test
+    void shouldRejectInvalidEmails() {
+        assertThat(EmailValidator.isValid(""), is(false));
+        assertThat(EmailValidator.isValid("user.com"), is(false));
+        assertThat(EmailValidator.isValid("@mail.ru"), is(false));
+        assertThat(EmailValidator.isValid("a".repeat(65) + "@mail.ru"), is(false));
+        assertThat(EmailValidator.isValid(".user@mail.ru"), is(false));
+        assertThat(EmailValidator.isValid("user.@mail.ru"), is(false));
+        assertThat(EmailValidator.isValid("us..er@mail.ru"), is(false));
+        assertThat(EmailValidator.isValid("user@-mail.ru"), is(false));
+        assertThat(EmailValidator.isValid("user@mail"), is(false));
+        assertThat(EmailValidator.isValid("user@mail.r"), is(false));
+        assertThat(EmailValidator.isValid("user@mail.r1"), is(false));
+        assertThat(EmailValidator.isValid("user@mail..ru"), is(false));
+        assertThat(EmailValidator.isValid("user@mail.ru."), is(false));
+        assertThat(EmailValidator.isValid("user@mail.ru\n"), is(false));
+        assertThat(EmailValidator.isValid("us er@mail.ru"), is(false));
+        assertThat(EmailValidator.isValid("юзер@mail.ru"), is(false));
+        assertThat(EmailValidator.isValid("a@😀.com"), is(false));
+        assertThat(EmailValidator.isValid("a😀@b.com"), is(false));
+    }
+
+    @Test
+    void shouldAgreeWithRegexOnRandomStrings() {
+        Random random = new Random(42);
+        int accepted = 0;
+        for (int i = 0; i < CASES; i++) {
+            String email = i % 2 == 0 ? randomString(random) : mutate(random, randomEmail(random));
+            boolean expected = REFERENCE.matcher(email).matches();
+            assertThat("«" + email + "»", EmailValidator.isValid(email), is(expected));
+            if (expected) {
+                accepted++;
+            }
+        }
+        // генератор должен давать заметную долю валидных адресов, иначе сравнение ничего не проверяет
+        assertThat(accepted, greaterThan(CASES / 20));
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(24);
+        for (int i = 0; i < length; i++) {
+            builder.append(symbol(random));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Адрес, близкий к валидному: локальная часть около границы в 64 символа, несколько меток домена
+     */
+    private static String randomEmail(Random random) {
+        StringBuilder builder = new StringBuilder();
+        appendLabels(builder, random, 1 + random.nextInt(4), random.nextBoolean() ? 20 : 2, "a0_-");
+        builder.append('@');
+        appendLabels(builder, random, 1 + random.nextInt(4), 5, "b1-");
+        builder.append('.');
+        appendLabels(builder, random, 1, 3, "cD");
+        return builder.toString();
+    }
+
+    private static void appendLabels(StringBuilder builder, Random random, int labels, int maxLength, String chars) {
+        for (int label = 0; label < labels; label++) {
+            if (label > 0) {
+                builder.append('.');
+            }
+            int length = 1 + random.nextInt(maxLength);
+            for (int i = 0; i < length; i++) {
+                builder.append(chars.charAt(random.nextInt(chars.length())));
+            }
+        }
+    }
+
+    /**
+     * С вероятностью 1/2 оставляет адрес как есть, иначе заменяет, вставляет или удаляет один char
+     */
+    private static String mutate(Random random, String email) {
+        if (random.nextBoolean()) {
+            return email;
+        }
+        StringBuilder builder = new StringBuilder(email);
+        int position = random.nextInt(email.length());
+        String symbol = symbol(random);
+        switch (random.nextInt(3)) {
+            case 0:
+                builder.replace(position, position + 1, symbol);
+                break;
+            case 1:
+                builder.insert(position, symbol);
+                break;
+            default:
+                builder.deleteCharAt(position);
+        }
+        return builder.toString();
+    }
+
+    private static String symbol(Random random) {
+        return ALPHABET[random.nextInt(ALPHABET.length)];
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class UserEmailFilterTest {
+
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final UserEmailFilter filter = new UserEmailFilter(userRepository, true);
+
+    @Test
+    void shouldTreatEveryEmailAsTakenUntilBuilt() {
+        assertThat(filter.mightBeTaken("new@mail.ru"), is(true));
+    }
+
+    @Test
+    void shouldTreatEveryEmailAsTakenWithoutSingleWriter() {
+        UserEmailFilter shared = new UserEmailFilter(userRepository, false);
+        shared.rebuild();
+        shared.add("ivanov@mail.ru");
+
+        assertThat(shared.mightBeTaken("sidorov@mail.ru"), is(true));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void shouldKnowEmailsFromDatabase() {
+        build();
+
+        assertThat(filter.mightBeTaken("ivanov@mail.ru"), is(true));
+        assertThat(filter.mightBeTaken("petrov@mail.ru"), is(true));
+        assertThat(filter.mightBeTaken("sidorov@mail.ru"), is(false));
+    }
+
+    @Test
+    void shouldFollowEmailChanges() {
+        build();
+
+        filter.add("sidorov@mail.ru");
+        filter.remove("ivanov@mail.ru");
+
+        assertThat(filter.mightBeTaken("sidorov@mail.ru"), is(true));
+        assertThat(filter.mightBeTaken("ivanov@mail.ru"), is(false));
+        assertThat(filter.mightBeTaken("petrov@mail.ru"), is(true));
+    }
+
+    private void build() {
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.findEmailPageAfter(eq(""), any())).thenReturn(List.of("ivanov@mail.ru", "petrov@mail.ru"));
+        when(userRepository.findEmailPageAfter(eq("petrov@mail.ru"), any())).thenReturn(List.of());
+        filter.rebuild();
+    }
+}
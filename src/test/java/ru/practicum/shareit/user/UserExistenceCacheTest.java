@@ -0,0 +1,83 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserExistenceCacheTest {
+
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private UserExistenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(), true);
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.findIdPageAfter(eq(0L), any())).thenReturn(List.of(1L, 2L));
+        when(userRepository.findIdPageAfter(eq(2L), any())).thenReturn(List.of());
+        cache.rebuild();
+    }
+
+    @Test
+    void shouldConfirmUnknownIdsInDatabaseWithoutSingleWriter() {
+        UserExistenceCache shared = new UserExistenceCache(userRepository, new SimpleMeterRegistry(), false);
+        shared.rebuild();
+        when(userRepository.existsById(1000L)).thenReturn(true);
+
+        assertThat(shared.exists(1000L), is(true));
+        assertThat(shared.exists(1000L), is(true));
+        assertThat(shared.exists(1001L), is(false));
+        verify(userRepository, times(1)).existsById(1000L);
+        verify(userRepository, times(1)).existsById(1001L);
+    }
+
+    @Test
+    void shouldAnswerUnknownIdsWithoutDatabaseForSingleWriter() {
+        assertThat(cache.exists(1000L), is(false));
+        assertThat(cache.exists(1001L), is(false));
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void shouldConfirmKnownIdOnceAndRemember() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThat(cache.exists(1L), is(true));
+        assertThat(cache.exists(1L), is(true));
+        verify(userRepository, times(1)).existsById(1L);
+    }
+
+    @Test
+    void shouldFollowCreateAndDelete() {
+        when(userRepository.existsById(3L)).thenReturn(true);
+        cache.add(3L);
+        assertThat(cache.exists(3L), is(true));
+
+        cache.remove(3L);
+        assertThat(cache.exists(3L), is(false));
+    }
+
+    @Test
+    void shouldRebuildWhenUsersOutgrowFilter() {
+        int capacity = 1024;
+        for (long id = 3; id <= capacity; id++) {
+            cache.add(id);
+        }
+        verify(userRepository, times(1)).count();
+        cache.add((long) capacity + 1);
+        verify(userRepository, times(2)).count();
+    }
+}
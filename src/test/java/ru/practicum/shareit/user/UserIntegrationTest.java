@@ -162,7 +162,7 @@ public class UserIntegrationTest {
     @Test
     @Order(10)
     public void userGetTest() throws Exception {
-        UserDto userDto = makeUserDto(3, "user", "user@user.com");
+        UserDto userDto = makeUserDto(2, "user", "user@user.com");
         mvc.perform(get("/users/" + userDto.getId())
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -186,7 +186,7 @@ public class UserIntegrationTest {
     @Test
     @Order(12)
     public void userDeleteTest() throws Exception {
-        mvc.perform(delete("/users/3")
+        mvc.perform(delete("/users/2")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -203,7 +203,7 @@ public class UserIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id", is(4L), Long.class))
+                .andExpect(jsonPath("$.id", is(3L), Long.class))
                 .andExpect(jsonPath("$.name", is(userDto.getName())))
                 .andExpect(jsonPath("$.email", is(userDto.getEmail())));
     }
@@ -220,7 +220,7 @@ public class UserIntegrationTest {
                 .andExpect(jsonPath("$[0].id", is(1L), Long.class))
                 .andExpect(jsonPath("$[0].name", is("updateName")))
                 .andExpect(jsonPath("$[0].email", is("updateName@user.com")))
-                .andExpect(jsonPath("$[1].id", is(4L), Long.class))
+                .andExpect(jsonPath("$[1].id", is(3L), Long.class))
                 .andExpect(jsonPath("$[1].name", is("user")))
                 .andExpect(jsonPath("$[1].email", is("user@user.com")));
     }
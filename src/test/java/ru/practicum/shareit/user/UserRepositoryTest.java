@@ -0,0 +1,65 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.SqlStatementCollector;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.ObjectMaker.makeUser;
+
+/**
+ * Пользователи читаются из кэша второго уровня: по id и по почте как по натуральному ключу.
+ * Кэш наполняется только зафиксированными транзакциями, поэтому тест работает без общей транзакции.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.SqlStatementCollector")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRepositoryTest {
+    @Autowired
+    private UserRepository repository;
+
+    private final List<User> saved = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        repository.deleteAll(saved);
+    }
+
+    @Test
+    public void shouldServeRepeatedReadsFromSecondLevelCache() {
+        User user = save(makeUser(null, "Пётр", "cached@mail.ru"));
+        repository.findById(user.getId()).orElseThrow();
+        repository.findByEmail("cached@mail.ru").orElseThrow();
+        SqlStatementCollector.clear();
+
+        assertThat(repository.findById(user.getId())).get().hasFieldOrPropertyWithValue("name", "Пётр");
+        assertThat(repository.findByEmail("cached@mail.ru")).get().hasFieldOrPropertyWithValue("id", user.getId());
+        assertThat(SqlStatementCollector.selects()).isEmpty();
+    }
+
+    @Test
+    public void shouldFollowEmailChange() {
+        User user = save(makeUser(null, "Иван", "old@mail.ru"));
+        assertThat(repository.findByEmail("old@mail.ru")).isPresent();
+
+        user.setEmail("new@mail.ru");
+        repository.save(user);
+
+        assertThat(repository.findByEmail("old@mail.ru")).isEmpty();
+        assertThat(repository.findByEmail("new@mail.ru")).get().hasFieldOrPropertyWithValue("id", user.getId());
+        assertThat(repository.findByEmail("nobody@mail.ru")).isEmpty();
+    }
+
+    private User save(User user) {
+        User result = repository.save(user);
+        saved.add(result);
+        return result;
+    }
+}
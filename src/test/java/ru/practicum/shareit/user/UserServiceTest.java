@@ -7,16 +7,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.error.exeptions.UserDuplicateEmailException;
+import ru.practicum.shareit.error.exeptions.UserNotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static ru.practicum.shareit.ObjectMaker.makeUser;
 import static ru.practicum.shareit.ObjectMaker.makeUserDto;
 
@@ -29,6 +34,12 @@ class UserServiceTest {
     @Mock
     private UserValidation validation;
 
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
+    @Mock
+    private UserEmailFilter userEmailFilter;
+
     @InjectMocks
     private UserServiceImpl service;
 
@@ -67,4 +78,69 @@ class UserServiceTest {
         assertThat(savedUserDto.getName(), equalTo(userDto.getName()));
         assertThat(savedUserDto.getEmail(), equalTo(userDto.getEmail()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("JUnit test for update User email method")
+    void givenNewEmail_whenUpdateUser_thenMoveEmailInFilter() {
+        //given
+        UserDto userDto = makeUserDto(null, "new@mail.ru");
+        User user = makeUser(1L, "Пётр", "old@mail.ru");
+        Mockito.when(validation.validateUpdateAndGet(userDto)).thenReturn(user);
+        Mockito.when(repository.save(Mockito.any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        UserDto updatedUserDto = service.update(1L, userDto);
+
+        // then
+        assertThat(updatedUserDto.getEmail(), equalTo("new@mail.ru"));
+        Mockito.verify(userEmailFilter).add("new@mail.ru");
+        Mockito.verify(userEmailFilter).remove("old@mail.ru");
+    }
+
+    @Test
+    @DisplayName("JUnit test for update User email taken concurrently")
+    void givenEmailTakenOnSave_whenUpdateUser_thenThrowDuplicateEmail() {
+        //given
+        UserDto userDto = makeUserDto(null, "new@mail.ru");
+        User user = makeUser(1L, "Пётр", "old@mail.ru");
+        Mockito.when(validation.validateUpdateAndGet(userDto)).thenReturn(user);
+        Mockito.when(repository.save(Mockito.any(User.class))).thenThrow(new DataIntegrityViolationException("uq_user_email"));
+
+        // when
+        assertThrows(UserDuplicateEmailException.class, () -> service.update(1L, userDto));
+
+        // then
+        Mockito.verifyNoInteractions(userEmailFilter);
+    }
+
+    @Test
+    @DisplayName("JUnit test for delete User method")
+    void givenUserId_whenDeleteUser_thenLoadOnceAndForget() {
+        //given
+        User user = makeUser(1L, "Пётр", "petr@mail.ru");
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(user));
+
+        // when
+        service.delete(1L);
+
+        // then
+        Mockito.verify(repository).delete(user);
+        Mockito.verify(userEmailFilter).remove("petr@mail.ru");
+        Mockito.verify(userExistenceCache).remove(1L);
+        Mockito.verifyNoMoreInteractions(userExistenceCache);
+    }
+
+    @Test
+    @DisplayName("JUnit test for delete unknown User method")
+    void givenUnknownUserId_whenDeleteUser_thenThrow() {
+        //given
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.empty());
+
+        // when
+        assertThrows(UserNotFoundException.class, () -> service.delete(1L));
+
+        // then
+        Mockito.verify(repository, Mockito.never()).delete(Mockito.any(User.class));
+        Mockito.verifyNoInteractions(userExistenceCache, userEmailFilter);
+    }
+}